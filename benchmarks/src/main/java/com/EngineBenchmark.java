@@ -0,0 +1,157 @@
+package com;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the hot paths of the engine on an opening, a middlegame and an endgame position.
+ * <p>
+ * Run all of them with the allocation rate per operation: java -jar target/benchmarks.jar -prof gc
+ *
+ * @author Janos Nagy
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EngineBenchmark {
+    /**
+     * The benchmarked positions in FEN, see Fen.
+     */
+    @Param({
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1",
+            "r2q1rk1/pp2bppp/2n1pn2/3p4/3P4/2NBPN2/PP3PPP/R2Q1RK1 b - - 0 10",
+            "8/5pk1/6p1/8/3K4/8/5PP1/8 w - - 0 1"
+    })
+    public String fen;
+
+    /**
+     * The alliance that is about to move in the position.
+     */
+    private int alliance;
+
+    /**
+     * The board that holds the position. It is also Board.position during the benchmarks.
+     */
+    private BitBoard board;
+
+    /**
+     * The legal moves of the position.
+     */
+    private final MoveList legalMoves = new MoveList();
+
+    /**
+     * A list that the benchmarks fill.
+     */
+    private final MoveList moves = new MoveList();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        board = Fen.toBoard(fen);
+        alliance = Fen.sideToMove(fen);
+        Board.position = board;
+        Board.allLegalMoves(board, alliance, legalMoves);
+        Decision.setThreads(1);
+    }
+
+    @Benchmark
+    public int allLegalMoves() {
+        Board.allLegalMoves(alliance, moves);
+        return moves.size();
+    }
+
+    @Benchmark
+    public boolean kingSafe() {
+        return Board.kingSafe(alliance);
+    }
+
+    @Benchmark
+    public void executeAndUndoMoves(Blackhole blackhole) {
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int move = legalMoves.get(i);
+            Board.executeMove(move);
+            blackhole.consume(board.getKey());
+            Board.undoMove(move);
+        }
+    }
+
+    @Benchmark
+    public long mirrorBoardHorizontally() {
+        Board.mirrorBoardHorizontally();
+        Board.mirrorBoardHorizontally();
+        return board.getKey();
+    }
+
+    @Benchmark
+    public int materialEvaluation() {
+        return Decision.getMaterialEvaluation(alliance);
+    }
+
+    @Benchmark
+    public int pawnStructure() {
+        return PawnStructure.evaluate(board);
+    }
+
+    /**
+     * The pawn structure of the position is answered from the pawn hash table after the first invocation.
+     */
+    @Benchmark
+    public int evaluation() {
+        return Decision.evaluate(board, alliance, Decision.getPawnTable());
+    }
+
+    /**
+     * The fixed-depth search benchmarks use their own small transposition table instead of the shared one of
+     * Decision. It is cleared before every invocation, so every search starts cold like the searches of Bench; the
+     * table fits in the caches, so clearing it only takes a few microseconds.
+     */
+    @State(Scope.Thread)
+    public static class SearchState {
+        @Param({"2", "4"})
+        public int depth;
+
+        /**
+         * The table of the benchmarks, and the shared table that it replaces during an iteration.
+         */
+        private final TranspositionTable transpositionTable = new TranspositionTable(1);
+        private TranspositionTable sharedTable;
+
+        @Setup(Level.Iteration)
+        public void useSmallTranspositionTable() {
+            sharedTable = Decision.transpositionTable;
+            Decision.transpositionTable = transpositionTable;
+        }
+
+        @Setup(Level.Invocation)
+        public void clearTranspositionTable() {
+            transpositionTable.clear();
+        }
+
+        @TearDown(Level.Iteration)
+        public void restoreTranspositionTable() {
+            Decision.transpositionTable = sharedTable;
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public SearchResult alphaBeta(SearchState searchState) {
+        return Decision.search(alliance, searchState.depth);
+    }
+}
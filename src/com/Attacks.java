@@ -0,0 +1,316 @@
+package com;
+
+/**
+ * This class provides precomputed attack tables, so that the fields attacked by a piece and the question whether a
+ * field is attacked can be answered with a few bit operations instead of walking the board.
+ * <p>
+ * The tables are built once from the off-set coordinates of the pieces (see the legalMoveIndex arrays of Knight, King,
+ * Bishop and Rook), so they follow exactly the same rules as the move generation. Every table holds a bitboard per field:
+ * bit n is set if the piece standing on the field attacks the field with the ID n.
+ *
+ * @author Janos Nagy
+ */
+public class Attacks {
+    /**
+     * The fields attacked by a knight, indexed by the ID of the field of the knight.
+     */
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+
+    /**
+     * The fields attacked by a king, indexed by the ID of the field of the king.
+     */
+    private static final long[] KING_ATTACKS = new long[64];
+
+    /**
+     * The fields attacked by a pawn, indexed by the alliance of the pawn and the ID of the field of the pawn.
+     */
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    /**
+     * The rays of a bishop (up to the edge of the board, ignoring all pieces), indexed by direction and field.
+     */
+    private static final long[][] BISHOP_RAYS = rays(Bishop.legalMoveIndex);
+
+    /**
+     * True for the bishop directions that lead towards larger field IDs.
+     */
+    private static final boolean[] BISHOP_RAY_ASCENDING = ascending(Bishop.legalMoveIndex);
+
+    /**
+     * The rays of a rook (up to the edge of the board, ignoring all pieces), indexed by direction and field.
+     */
+    private static final long[][] ROOK_RAYS = rays(Rook.legalMoveIndex);
+
+    /**
+     * True for the rook directions that lead towards larger field IDs.
+     */
+    private static final boolean[] ROOK_RAY_ASCENDING = ascending(Rook.legalMoveIndex);
+
+    /**
+     * The fields strictly between two fields that are on the same row, column or diagonal, indexed by the IDs of the
+     * two fields. The value is 0 if the two fields are not on a common line.
+     */
+    private static final long[][] BETWEEN = new long[64][64];
+
+    /**
+     * The whole row, column or diagonal (from edge to edge) that goes through two fields, indexed by the IDs of the
+     * two fields. The value is 0 if the two fields are not on a common line.
+     */
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = stepAttacks(Knight.legalMoveIndex, square);
+            KING_ATTACKS[square] = stepAttacks(King.legalMoveIndex, square);
+            for (int alliance = Constans.AI; alliance <= Constans.HUMAN; alliance++) {
+                int row = square / 8 + Pawn.direction(alliance);
+                int column = square % 8;
+                if (Move.stillOnBoard(row, column - 1)) {
+                    PAWN_ATTACKS[alliance][square] |= 1L << (row * 8 + column - 1);
+                }
+                if (Move.stillOnBoard(row, column + 1)) {
+                    PAWN_ATTACKS[alliance][square] |= 1L << (row * 8 + column + 1);
+                }
+            }
+        }
+
+        long[][] queenRays = rays(Queen.legalMoveIndex);
+        for (int square = 0; square < 64; square++) {
+            for (int direction = 0; direction < Queen.legalMoveIndex.length; direction++) {
+                long line = queenRays[direction][square] | queenRays[opposite(Queen.legalMoveIndex, direction)][square]
+                        | 1L << square;
+                long between = 0;
+                for (int[] step : Queen.legalMoveIndex[direction]) {
+                    int row = square / 8 + step[0];
+                    int column = square % 8 + step[1];
+                    if (!Move.stillOnBoard(row, column)) {
+                        break;
+                    }
+                    BETWEEN[square][row * 8 + column] = between;
+                    LINE[square][row * 8 + column] = line;
+                    between |= 1L << (row * 8 + column);
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the fields that are reached by the first step of every direction of a piece.
+     *
+     * @param legalMoveIndex The off-set coordinates of the piece's potential moves.
+     * @param square         The ID of the field of the piece.
+     * @return A bitboard of the fields attacked by the piece.
+     */
+    private static long stepAttacks(int[][][] legalMoveIndex, int square) {
+        long attacks = 0;
+        for (int[][] direction : legalMoveIndex) {
+            int row = square / 8 + direction[0][0];
+            int column = square % 8 + direction[0][1];
+            if (Move.stillOnBoard(row, column)) {
+                attacks |= 1L << (row * 8 + column);
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Finds the direction of a sliding piece that points the opposite way of the given direction.
+     *
+     * @param legalMoveIndex The off-set coordinates of the piece's potential moves, one array per direction.
+     * @param direction      The index of a direction in legalMoveIndex.
+     * @return The index of the opposite direction in legalMoveIndex.
+     */
+    private static int opposite(int[][][] legalMoveIndex, int direction) {
+        for (int i = 0; i < legalMoveIndex.length; i++) {
+            if (legalMoveIndex[i][0][0] == -legalMoveIndex[direction][0][0]
+                    && legalMoveIndex[i][0][1] == -legalMoveIndex[direction][0][1]) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No opposite direction for direction " + direction);
+    }
+
+    /**
+     * Builds the rays of a sliding piece for every field of the board.
+     *
+     * @param legalMoveIndex The off-set coordinates of the piece's potential moves, one array per direction.
+     * @return The rays indexed by direction and by the ID of the field of the piece.
+     */
+    private static long[][] rays(int[][][] legalMoveIndex) {
+        long[][] rays = new long[legalMoveIndex.length][64];
+        for (int direction = 0; direction < legalMoveIndex.length; direction++) {
+            for (int square = 0; square < 64; square++) {
+                for (int[] step : legalMoveIndex[direction]) {
+                    int row = square / 8 + step[0];
+                    int column = square % 8 + step[1];
+                    if (Move.stillOnBoard(row, column)) {
+                        rays[direction][square] |= 1L << (row * 8 + column);
+                    }
+                }
+            }
+        }
+        return rays;
+    }
+
+    /**
+     * Tells for every direction of a sliding piece whether it leads towards larger field IDs.
+     *
+     * @param legalMoveIndex The off-set coordinates of the piece's potential moves, one array per direction.
+     * @return An array that holds true for the ascending directions.
+     */
+    private static boolean[] ascending(int[][][] legalMoveIndex) {
+        boolean[] ascending = new boolean[legalMoveIndex.length];
+        for (int direction = 0; direction < legalMoveIndex.length; direction++) {
+            ascending[direction] = legalMoveIndex[direction][0][0] * 8 + legalMoveIndex[direction][0][1] > 0;
+        }
+        return ascending;
+    }
+
+    /**
+     * Calculates the fields attacked by a sliding piece. Every ray ends at the first occupied field, which is
+     * included, because it holds either an enemy piece that can be captured or a friendly piece that is defended.
+     *
+     * @param rays      The rays of the piece, see rays().
+     * @param ascending The directions of the rays, see ascending().
+     * @param square    The ID of the field of the piece.
+     * @param occupied  The fields occupied by any piece.
+     * @return A bitboard of the fields attacked by the piece.
+     */
+    private static long slidingAttacks(long[][] rays, boolean[] ascending, int square, long occupied) {
+        long attacks = 0;
+        for (int direction = 0; direction < rays.length; direction++) {
+            long ray = rays[direction][square];
+            long blockers = ray & occupied;
+            if (blockers != 0) {
+                int blocker = ascending[direction]
+                        ? Long.numberOfTrailingZeros(blockers)
+                        : 63 - Long.numberOfLeadingZeros(blockers);
+                ray ^= rays[direction][blocker];
+            }
+            attacks |= ray;
+        }
+        return attacks;
+    }
+
+    /**
+     * @param square The ID of the field of the knight.
+     * @return A bitboard of the fields attacked by a knight standing on the field.
+     */
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    /**
+     * @param square The ID of the field of the king.
+     * @return A bitboard of the fields attacked by a king standing on the field.
+     */
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @param alliance The alliance of the pawn, Constans.AI or Constans.HUMAN.
+     * @param square   The ID of the field of the pawn.
+     * @return A bitboard of the fields attacked by a pawn of the alliance standing on the field.
+     */
+    public static long pawnAttacks(int alliance, int square) {
+        return PAWN_ATTACKS[alliance][square];
+    }
+
+    /**
+     * @param square   The ID of the field of the bishop.
+     * @param occupied The fields occupied by any piece.
+     * @return A bitboard of the fields attacked by a bishop standing on the field.
+     */
+    public static long bishopAttacks(int square, long occupied) {
+        return slidingAttacks(BISHOP_RAYS, BISHOP_RAY_ASCENDING, square, occupied);
+    }
+
+    /**
+     * @param square   The ID of the field of the rook.
+     * @param occupied The fields occupied by any piece.
+     * @return A bitboard of the fields attacked by a rook standing on the field.
+     */
+    public static long rookAttacks(int square, long occupied) {
+        return slidingAttacks(ROOK_RAYS, ROOK_RAY_ASCENDING, square, occupied);
+    }
+
+    /**
+     * @param from The ID of a field.
+     * @param to   The ID of another field.
+     * @return A bitboard of the fields strictly between the two fields, or 0 if they are not on a common line.
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * @param from The ID of a field.
+     * @param to   The ID of another field.
+     * @return A bitboard of the whole line through the two fields, or 0 if they are not on a common line.
+     */
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+
+    /**
+     * Collects the pieces of the given alliance that attack a field.
+     *
+     * @param board    The board that holds the position.
+     * @param square   The ID of the field (0-63).
+     * @param bySide   The alliance of the attacking pieces, Constans.AI or Constans.HUMAN.
+     * @param occupied The fields that block the sliding pieces, normally all occupied fields of the board.
+     * @return A bitboard of the attacking pieces.
+     */
+    public static long attackersTo(BitBoard board, int square, int bySide, long occupied) {
+        long queens = board.pieces(bySide, Constans.QUEEN);
+        return (KNIGHT_ATTACKS[square] & board.pieces(bySide, Constans.KNIGHT))
+                | (PAWN_ATTACKS[bySide ^ 1][square] & board.pieces(bySide, Constans.PAWN))
+                | (KING_ATTACKS[square] & board.pieces(bySide, Constans.KING))
+                | (bishopAttacks(square, occupied) & (board.pieces(bySide, Constans.BISHOP) | queens))
+                | (rookAttacks(square, occupied) & (board.pieces(bySide, Constans.ROOK) | queens));
+    }
+
+    /**
+     * Determines if any piece of the given alliance attacks a field. The question is answered the other way around:
+     * a piece of the alliance attacks the field if the same kind of piece standing on the field would attack it.
+     *
+     * @param board  The board that holds the position.
+     * @param square The ID of the field (0-63).
+     * @param bySide The alliance of the attacking pieces, Constans.AI or Constans.HUMAN.
+     * @return true if at least one piece of the alliance attacks the field, false otherwise.
+     */
+    public static boolean isSquareAttacked(BitBoard board, int square, int bySide) {
+        return isSquareAttacked(board, square, bySide, board.allPieces);
+    }
+
+    /**
+     * Determines if any piece of the given alliance attacks a field, with the sliding pieces blocked by the given
+     * fields. Leaving the king out of the blocking fields shows which fields the king cannot step back to along the
+     * line of a checking piece.
+     *
+     * @param board    The board that holds the position.
+     * @param square   The ID of the field (0-63).
+     * @param bySide   The alliance of the attacking pieces, Constans.AI or Constans.HUMAN.
+     * @param occupied The fields that block the sliding pieces.
+     * @return true if at least one piece of the alliance attacks the field, false otherwise.
+     */
+    public static boolean isSquareAttacked(BitBoard board, int square, int bySide, long occupied) {
+        if ((KNIGHT_ATTACKS[square] & board.pieces(bySide, Constans.KNIGHT)) != 0) {
+            return true;
+        }
+        if ((PAWN_ATTACKS[bySide ^ 1][square] & board.pieces(bySide, Constans.PAWN)) != 0) {
+            return true;
+        }
+        if ((KING_ATTACKS[square] & board.pieces(bySide, Constans.KING)) != 0) {
+            return true;
+        }
+        long queens = board.pieces(bySide, Constans.QUEEN);
+        long diagonalSliders = board.pieces(bySide, Constans.BISHOP) | queens;
+        if (diagonalSliders != 0 && (bishopAttacks(square, occupied) & diagonalSliders) != 0) {
+            return true;
+        }
+        long straightSliders = board.pieces(bySide, Constans.ROOK) | queens;
+        return straightSliders != 0 && (rookAttacks(square, occupied) & straightSliders) != 0;
+    }
+}
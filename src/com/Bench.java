@@ -0,0 +1,60 @@
+package com;
+
+/**
+ * This class searches a fixed list of positions to a fixed depth and prints the total number of searched positions
+ * and the speed of the search. The search is single-threaded, does not use the tablebases and starts with an empty
+ * transposition table for every position, so the node count only changes if the behaviour of the search changes; the
+ * speed shows whether a change made the engine faster.
+ * <p>
+ * Usage: java com.Bench [depth]
+ *
+ * @author Janos Nagy
+ */
+public class Bench {
+    /**
+     * Opening, middlegame and endgame positions in FEN, see Fen.
+     */
+    static final String[] POSITIONS = {
+            Fen.START_POSITION,
+            "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w - - 4 4",
+            "rnbq1rk1/ppp1bppp/4pn2/3p2B1/2PP4/2N2N2/PP2PPPP/R2QKB1R w - - 0 6",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1",
+            "r2q1rk1/pp2bppp/2n1pn2/3p4/3P4/2NBPN2/PP3PPP/R2Q1RK1 b - - 0 10",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1",
+            "8/5pk1/6p1/8/3K4/8/5PP1/8 w - - 0 1",
+            "4k3/8/8/8/8/8/4P3/4K3 w - - 0 1",
+    };
+
+    /**
+     * The default depth that every position is searched to.
+     */
+    private static final int DEFAULT_DEPTH = 6;
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+        Decision.setThreads(1);
+        Tablebase.clear();
+
+        long totalNodes = 0;
+        long totalTime = 0;
+        for (String fen : POSITIONS) {
+            Board.position = Fen.toBoard(fen);
+            Decision.getTranspositionTable().clear();
+            long start = System.nanoTime();
+            SearchResult result = Decision.search(Fen.sideToMove(fen), depth);
+            long time = System.nanoTime() - start;
+            totalNodes += result.getNodes();
+            totalTime += time;
+            System.out.println(String.format("%-80s %6s %8d %10d", fen, Move.toString(result.getMove()),
+                    result.getScore(), result.getNodes()));
+        }
+        Board.newGame();
+
+        System.out.println("===========================");
+        System.out.println("Total time (ms) : " + totalTime / 1000000);
+        System.out.println("Nodes searched  : " + totalNodes);
+        System.out.println("Nodes/second    : " + totalNodes * 1000000000L / Math.max(1, totalTime));
+        System.out.println("Pawn hash hits  : " + String.format("%.1f%%", Decision.getPawnTable().getHitRate() * 100));
+    }
+}
@@ -0,0 +1,426 @@
+package com;
+
+/**
+ * This class is responsible for the bitboard representation of a position in the chess game.
+ * <p>
+ * Every piece type of every alliance is held in a single 64 bit long value. Bit n of such a long value is set if the
+ * field with the ID n (0-63) is occupied by the given piece. The ID of a field is row * 8 + column, where row 0 is the
+ * AI's home row and row 7 is the user's home row, just like in the rest of the program.
+ * <p>
+ * Next to the piece bitboards the class keeps the occupancy of both alliances, the occupancy of the whole board and a
+ * small array that tells which piece stands on a given field, so that no probe of the board needs a String comparison.
+ *
+ * @author Janos Nagy
+ */
+public class BitBoard {
+    /**
+     * The piece bitboards, indexed by pieceCode(alliance, pieceType).
+     */
+    final long[] pieces = new long[16];
+
+    /**
+     * The fields occupied by the pieces of the AI (index Constans.AI) and of the user (index Constans.HUMAN).
+     */
+    final long[] occupancy = new long[2];
+
+    /**
+     * The fields occupied by any piece.
+     */
+    long allPieces;
+
+    /**
+     * The piece code of the piece that occupies each field, or Constans.NO_PIECE if the field is empty.
+     */
+    final byte[] squares = new byte[64];
+
+    /**
+     * The Zobrist hash key of the position (see Zobrist). It is updated every time a piece is placed or removed.
+     */
+    long key;
+
+    /**
+     * The Zobrist hash key of the pawns alone. It only changes when a pawn moves, is captured or is promoted, so the
+     * evaluation of the pawn structure can be cached by it (see PawnTable).
+     */
+    long pawnKey;
+
+    /**
+     * The sum of the values (see Constans.PIECE_VALUES) of the pieces of the AI (index Constans.AI) and of the user
+     * (index Constans.HUMAN). It is updated every time a piece is placed or removed, so captures and pawn promotions
+     * change it as they are executed or undone and the evaluation never needs to count the pieces.
+     */
+    final int[] material = new int[2];
+
+    /**
+     * The sums of the middlegame and the endgame values (see PieceSquareTables) of the pieces of the AI (index
+     * Constans.AI) and of the user (index Constans.HUMAN), and the game phase of the position. They are updated
+     * together with the material.
+     */
+    final int[] midgame = new int[2];
+    final int[] endgame = new int[2];
+    int phase;
+
+    /**
+     * Constructs an empty board.
+     */
+    public BitBoard() {
+    }
+
+    /**
+     * Creates a board that holds the position of a new game: the AI's pieces on rows 0 and 1, the user's pieces on
+     * rows 6 and 7.
+     *
+     * @return A new BitBoard object that holds the starting position.
+     */
+    public static BitBoard initialPosition() {
+        BitBoard board = new BitBoard();
+        int[] backRow = {Constans.ROOK, Constans.KNIGHT, Constans.BISHOP, Constans.QUEEN,
+                Constans.KING, Constans.BISHOP, Constans.KNIGHT, Constans.ROOK};
+
+        for (int column = 0; column < 8; column++) {
+            board.putPiece(Constans.AI, backRow[column], column);
+            board.putPiece(Constans.AI, Constans.PAWN, 8 + column);
+            board.putPiece(Constans.HUMAN, Constans.PAWN, 48 + column);
+            board.putPiece(Constans.HUMAN, backRow[column], 56 + column);
+        }
+        return board;
+    }
+
+    /**
+     * Creates a piece code that identifies a piece type of a given alliance.
+     *
+     * @param alliance  Constans.AI or Constans.HUMAN.
+     * @param pieceType One of the piece type constants, e.g. Constans.PAWN.
+     * @return An int value (1-14) that identifies the piece.
+     */
+    public static int pieceCode(int alliance, int pieceType) {
+        return alliance << 3 | pieceType;
+    }
+
+    /**
+     * Extracts the alliance from a piece code.
+     *
+     * @param pieceCode A piece code created by pieceCode().
+     * @return Constans.AI or Constans.HUMAN.
+     */
+    public static int alliance(int pieceCode) {
+        return pieceCode >>> 3;
+    }
+
+    /**
+     * Extracts the piece type from a piece code.
+     *
+     * @param pieceCode A piece code created by pieceCode().
+     * @return One of the piece type constants, or Constans.NO_PIECE for an empty field.
+     */
+    public static int pieceType(int pieceCode) {
+        return pieceCode & 7;
+    }
+
+    /**
+     * Places a piece on an empty field.
+     *
+     * @param alliance  Constans.AI or Constans.HUMAN.
+     * @param pieceType One of the piece type constants, e.g. Constans.PAWN.
+     * @param square    The ID of the field (0-63).
+     */
+    public void putPiece(int alliance, int pieceType, int square) {
+        int pieceCode = pieceCode(alliance, pieceType);
+        long bit = 1L << square;
+        pieces[pieceCode] |= bit;
+        occupancy[alliance] |= bit;
+        allPieces |= bit;
+        squares[square] = (byte) pieceCode;
+        key ^= Zobrist.pieceKey(pieceCode, square);
+        if (pieceType == Constans.PAWN) {
+            pawnKey ^= Zobrist.pieceKey(pieceCode, square);
+        }
+        material[alliance] += Constans.PIECE_VALUES[pieceType];
+        midgame[alliance] += PieceSquareTables.MIDGAME[pieceCode][square];
+        endgame[alliance] += PieceSquareTables.ENDGAME[pieceCode][square];
+        phase += PieceSquareTables.PHASE_WEIGHTS[pieceType];
+    }
+
+    /**
+     * Removes the piece that occupies the given field. Nothing happens if the field is empty.
+     *
+     * @param square The ID of the field (0-63).
+     * @return The piece code of the removed piece, or Constans.NO_PIECE if the field was empty.
+     */
+    public int removePiece(int square) {
+        int pieceCode = squares[square];
+        if (pieceCode != Constans.NO_PIECE) {
+            long bit = ~(1L << square);
+            pieces[pieceCode] &= bit;
+            occupancy[alliance(pieceCode)] &= bit;
+            allPieces &= bit;
+            squares[square] = Constans.NO_PIECE;
+            key ^= Zobrist.pieceKey(pieceCode, square);
+            if (pieceType(pieceCode) == Constans.PAWN) {
+                pawnKey ^= Zobrist.pieceKey(pieceCode, square);
+            }
+            material[alliance(pieceCode)] -= Constans.PIECE_VALUES[pieceType(pieceCode)];
+            midgame[alliance(pieceCode)] -= PieceSquareTables.MIDGAME[pieceCode][square];
+            endgame[alliance(pieceCode)] -= PieceSquareTables.ENDGAME[pieceCode][square];
+            phase -= PieceSquareTables.PHASE_WEIGHTS[pieceType(pieceCode)];
+        }
+        return pieceCode;
+    }
+
+    /**
+     * Executes a move on this board. See Move for the representation of a move.
+     *
+     * @param move An int value that represents a move that is legal on this board.
+     */
+    public void makeMove(int move) {
+        int origin = Move.origin(move);
+        int destination = Move.destination(move);
+        int alliance = alliance(squares[origin]);
+
+        removePiece(origin);
+        if (Move.isEnPassant(move)) {
+            removePiece(Move.enPassantSquare(move));
+        } else if (Move.capturedType(move) != Constans.NO_PIECE) {
+            removePiece(destination);
+        }
+
+        if (Move.promotionType(move) != Constans.NO_PIECE) {
+            putPiece(alliance, Move.promotionType(move), destination);
+        } else {
+            putPiece(alliance, Move.pieceType(move), destination);
+        }
+    }
+
+    /**
+     * Undoes a move that was executed on this board by makeMove().
+     *
+     * @param move An int value that represents the move that was executed last.
+     */
+    public void unmakeMove(int move) {
+        int origin = Move.origin(move);
+        int destination = Move.destination(move);
+        int alliance = alliance(squares[destination]);
+
+        removePiece(destination);
+        putPiece(alliance, Move.pieceType(move), origin);
+
+        if (Move.isEnPassant(move)) {
+            putPiece(alliance ^ 1, Constans.PAWN, Move.enPassantSquare(move));
+        } else if (Move.capturedType(move) != Constans.NO_PIECE) {
+            putPiece(alliance ^ 1, Move.capturedType(move), destination);
+        }
+    }
+
+    /**
+     * Returns the piece code of the piece that occupies the given field.
+     *
+     * @param square The ID of the field (0-63).
+     * @return The piece code, or Constans.NO_PIECE if the field is empty.
+     */
+    public int pieceAt(int square) {
+        return squares[square];
+    }
+
+    /**
+     * Returns the bitboard of a piece type of an alliance.
+     *
+     * @param alliance  Constans.AI or Constans.HUMAN.
+     * @param pieceType One of the piece type constants, e.g. Constans.PAWN.
+     * @return A long value that has a bit set for every field occupied by the given piece.
+     */
+    public long pieces(int alliance, int pieceType) {
+        return pieces[pieceCode(alliance, pieceType)];
+    }
+
+    /**
+     * Returns the fields occupied by one alliance.
+     *
+     * @param alliance Constans.AI or Constans.HUMAN.
+     * @return A long value that has a bit set for every field occupied by the given alliance.
+     */
+    public long occupancy(int alliance) {
+        return occupancy[alliance];
+    }
+
+    /**
+     * Checks if the given field is empty.
+     *
+     * @param square The ID of the field (0-63).
+     * @return true if no piece occupies the field, false otherwise.
+     */
+    public boolean isEmpty(int square) {
+        return (allPieces & (1L << square)) == 0;
+    }
+
+    /**
+     * @return The Zobrist hash key of the position.
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * @return The Zobrist hash key of the pawns of both alliances, see pawnKey.
+     */
+    public long getPawnKey() {
+        return pawnKey;
+    }
+
+    /**
+     * @param alliance Constans.AI or Constans.HUMAN.
+     * @return The sum of the values of all pieces that belong to the alliance, including the king.
+     */
+    public int material(int alliance) {
+        return material[alliance];
+    }
+
+    /**
+     * @param alliance Constans.AI or Constans.HUMAN.
+     * @return The sum of the middlegame values of the pieces that belong to the alliance, see PieceSquareTables.
+     */
+    public int midgame(int alliance) {
+        return midgame[alliance];
+    }
+
+    /**
+     * @param alliance Constans.AI or Constans.HUMAN.
+     * @return The sum of the endgame values of the pieces that belong to the alliance, see PieceSquareTables.
+     */
+    public int endgame(int alliance) {
+        return endgame[alliance];
+    }
+
+    /**
+     * @return The game phase of the position, see PieceSquareTables.MAX_PHASE.
+     */
+    public int phase() {
+        return phase;
+    }
+
+    /**
+     * Finds the field of the king of the given alliance.
+     *
+     * @param alliance Constans.AI or Constans.HUMAN.
+     * @return The ID of the field (0-63) that the king occupies.
+     */
+    public int kingSquare(int alliance) {
+        return Long.numberOfTrailingZeros(pieces[pieceCode(alliance, Constans.KING)]);
+    }
+
+    /**
+     * Reverses the order of the rows and swaps the two alliances. See Board.mirrorBoardHorizontally().
+     * <p>
+     * Flipping the rows of a bitboard is a byte swap of the long value, so this costs a handful of instructions
+     * instead of rebuilding the 64 fields one by one.
+     */
+    public void mirror() {
+        for (int pieceType = Constans.PAWN; pieceType <= Constans.KING; pieceType++) {
+            int aiCode = pieceCode(Constans.AI, pieceType);
+            int userCode = pieceCode(Constans.HUMAN, pieceType);
+            long aiPieces = pieces[aiCode];
+            pieces[aiCode] = Long.reverseBytes(pieces[userCode]);
+            pieces[userCode] = Long.reverseBytes(aiPieces);
+        }
+        long aiOccupancy = occupancy[Constans.AI];
+        occupancy[Constans.AI] = Long.reverseBytes(occupancy[Constans.HUMAN]);
+        occupancy[Constans.HUMAN] = Long.reverseBytes(aiOccupancy);
+        allPieces = Long.reverseBytes(allPieces);
+        int aiMaterial = material[Constans.AI];
+        material[Constans.AI] = material[Constans.HUMAN];
+        material[Constans.HUMAN] = aiMaterial;
+        int aiMidgame = midgame[Constans.AI];
+        midgame[Constans.AI] = midgame[Constans.HUMAN];
+        midgame[Constans.HUMAN] = aiMidgame;
+        int aiEndgame = endgame[Constans.AI];
+        endgame[Constans.AI] = endgame[Constans.HUMAN];
+        endgame[Constans.HUMAN] = aiEndgame;
+
+        for (int square = 0; square < 32; square++) {
+            int mirroredSquare = square ^ 56;
+            byte pieceCode = squares[square];
+            squares[square] = mirroredPiece(squares[mirroredSquare]);
+            squares[mirroredSquare] = mirroredPiece(pieceCode);
+        }
+        key = Zobrist.computeKey(this);
+        pawnKey = Zobrist.computePawnKey(this);
+    }
+
+    /**
+     * Returns the same piece type of the other alliance.
+     *
+     * @param pieceCode A piece code created by pieceCode(), or Constans.NO_PIECE.
+     * @return The piece code of the opposite alliance, or Constans.NO_PIECE for an empty field.
+     */
+    private static byte mirroredPiece(int pieceCode) {
+        if (pieceCode == Constans.NO_PIECE) {
+            return Constans.NO_PIECE;
+        }
+        return (byte) (pieceCode ^ 8);
+    }
+
+    /**
+     * Creates an independent copy of this board.
+     *
+     * @return A new BitBoard object that holds the same position.
+     */
+    public BitBoard copy() {
+        BitBoard copy = new BitBoard();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /**
+     * Overwrites this board with the position held by another board.
+     *
+     * @param other The board to copy.
+     */
+    public void copyFrom(BitBoard other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(other.occupancy, 0, occupancy, 0, occupancy.length);
+        System.arraycopy(other.squares, 0, squares, 0, squares.length);
+        System.arraycopy(other.material, 0, material, 0, material.length);
+        System.arraycopy(other.midgame, 0, midgame, 0, midgame.length);
+        System.arraycopy(other.endgame, 0, endgame, 0, endgame.length);
+        phase = other.phase;
+        allPieces = other.allPieces;
+        key = other.key;
+        pawnKey = other.pawnKey;
+    }
+
+    /**
+     * Returns the one-character String that represents a piece in the rest of the program (see Constans), for example
+     * "P" for the user's pawn, "k" for the AI's knight or " " for an empty field.
+     *
+     * @param pieceCode A piece code created by pieceCode(), or Constans.NO_PIECE.
+     * @return A String that holds a single character.
+     */
+    public static String letter(int pieceCode) {
+        if (pieceCode == Constans.NO_PIECE) {
+            return Constans.EMPTY_FIELD;
+        }
+        String letter = Constans.PIECE_LETTERS[pieceType(pieceCode)];
+        if (alliance(pieceCode) == Constans.AI) {
+            return letter.toLowerCase();
+        }
+        return letter;
+    }
+
+    /**
+     * The opposite of letter(): returns the piece code that belongs to a one-character representation of a piece.
+     *
+     * @param letter A character such as 'P', 'k' or ' '.
+     * @return A piece code, or Constans.NO_PIECE if the character does not represent a piece.
+     */
+    public static int pieceCode(char letter) {
+        for (int pieceType = Constans.PAWN; pieceType <= Constans.KING; pieceType++) {
+            char userLetter = Constans.PIECE_LETTERS[pieceType].charAt(0);
+            if (letter == userLetter) {
+                return pieceCode(Constans.HUMAN, pieceType);
+            }
+            if (letter == Character.toLowerCase(userLetter)) {
+                return pieceCode(Constans.AI, pieceType);
+            }
+        }
+        return Constans.NO_PIECE;
+    }
+}
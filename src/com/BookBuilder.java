@@ -0,0 +1,368 @@
+package com;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class creates an opening book (see OpeningBook) from games in PGN files.
+ * <p>
+ * The files are read one after the other, and the games are parsed in parallel in batches of BATCH_SIZE games: every
+ * thread counts the moves of its games in its own map, and the maps are merged at the end of the batch. Every move of
+ * the first plies of a game gets a weight from the result of the game: 2 if the side that played it won, 1 for a
+ * draw or an unknown result and 0 for a loss. Moves whose total weight is smaller than the minimum weight are left out.
+ * <p>
+ * The engine does not castle and promotes pawns to queens only, so a game is only used up to its first castling or
+ * underpromotion. Games that do not start from the initial position are skipped.
+ * <p>
+ * Usage: java com.BookBuilder [-plies n] [-min n] [-threads n] book.bin games.pgn...
+ *
+ * @author Janos Nagy
+ */
+public class BookBuilder {
+    /**
+     * The number of games that are parsed in parallel at once. The games of a batch are held in memory.
+     */
+    private static final int BATCH_SIZE = 2000;
+
+    /**
+     * The default number of plies of every game that are added to the book.
+     */
+    private static final int DEFAULT_PLIES = 20;
+
+    /**
+     * The default weight that a move needs to be added to the book.
+     */
+    private static final int DEFAULT_MIN_WEIGHT = 1;
+
+    /**
+     * The piece letters of SAN, indexed by piece type.
+     */
+    private static final String PIECE_LETTERS = " PNBRQK";
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        int plies = DEFAULT_PLIES;
+        int minWeight = DEFAULT_MIN_WEIGHT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-plies") && i + 1 < args.length) {
+                plies = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-min") && i + 1 < args.length) {
+                minWeight = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                files.add(args[i]);
+            }
+        }
+        if (files.size() < 2) {
+            System.out.println("Usage: java com.BookBuilder [-plies n] [-min n] [-threads n] book.bin games.pgn...");
+            return;
+        }
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        Map<Long, Map<Integer, Integer>> book = new HashMap<>();
+        int gameCount = 0;
+        for (String file : files.subList(1, files.size())) {
+            try (BufferedReader reader = Files.newBufferedReader(Paths.get(file), StandardCharsets.ISO_8859_1)) {
+                StringBuilder nextGame = new StringBuilder();
+                List<String> batch;
+                while (!(batch = readGames(reader, BATCH_SIZE, nextGame)).isEmpty()) {
+                    int gamePlies = plies;
+                    List<String> games = batch;
+                    Map<Long, Map<Integer, Integer>> weights = pool.submit(() -> games.parallelStream().collect(
+                            HashMap<Long, Map<Integer, Integer>>::new,
+                            (map, game) -> addGame(map, game, gamePlies),
+                            BookBuilder::merge)).get();
+                    merge(book, weights);
+                    gameCount += batch.size();
+                }
+            }
+        }
+        pool.shutdown();
+
+        for (Map<Integer, Integer> moves : book.values()) {
+            int limit = minWeight;
+            moves.values().removeIf(weight -> weight < limit);
+        }
+        int entryCount = OpeningBook.write(new File(files.get(0)), book);
+        System.out.println("Games           : " + gameCount);
+        System.out.println("Book entries    : " + entryCount);
+        System.out.println("Total time (ms) : " + (System.nanoTime() - start) / 1000000);
+    }
+
+    /**
+     * Reads the next games from a PGN file.
+     *
+     * @param reader   Reads the PGN file.
+     * @param maxGames The largest number of games to read.
+     * @param nextGame Holds the beginning of the next game between two calls. It has to be empty for the first call.
+     * @return The text of the games, tag pairs and movetext. The list is empty at the end of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    static List<String> readGames(BufferedReader reader, int maxGames, StringBuilder nextGame) throws IOException {
+        List<String> games = new ArrayList<>();
+        boolean inMoves = false;
+        String line;
+        while (games.size() < maxGames && (line = reader.readLine()) != null) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("[") && inMoves) {
+                games.add(nextGame.toString());
+                nextGame.setLength(0);
+                inMoves = false;
+            }
+            if (!trimmed.isEmpty() && !trimmed.startsWith("[") && !trimmed.startsWith("%")) {
+                inMoves = true;
+            }
+            nextGame.append(line).append('\n');
+        }
+        if (games.size() < maxGames && nextGame.toString().trim().length() > 0) {
+            games.add(nextGame.toString());
+            nextGame.setLength(0);
+        }
+        return games;
+    }
+
+    /**
+     * Plays the moves of a game and adds the first plies to the weights of the book.
+     *
+     * @param book  The weights of the moves, indexed by the key of the position (see OpeningBook.key()) and the move.
+     * @param game  The text of the game, tag pairs and movetext.
+     * @param plies The number of plies of the game that are added.
+     */
+    static void addGame(Map<Long, Map<Integer, Integer>> book, String game, int plies) {
+        StringBuilder moveText = new StringBuilder();
+        String result = "*";
+        for (String line : game.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("[")) {
+                if (trimmed.startsWith("[FEN ") || trimmed.startsWith("[SetUp \"1\"")) {
+                    return;
+                }
+                if (trimmed.startsWith("[Result ")) {
+                    result = trimmed.substring(8).replaceAll("[\"\\]\\s]", "");
+                }
+            } else if (!trimmed.startsWith("%")) {
+                moveText.append(line).append('\n');
+            }
+        }
+
+        BitBoard board = BitBoard.initialPosition();
+        int alliance = Constans.HUMAN;
+        int ply = 0;
+        for (String token : tokens(moveText.toString())) {
+            if (ply == plies) {
+                break;
+            }
+            int move = parseSan(board, alliance, token);
+            if (move == Move.NO_MOVE) {
+                break;
+            }
+            int weight = weight(result, alliance);
+            if (weight > 0) {
+                book.computeIfAbsent(OpeningBook.key(board, alliance), key -> new HashMap<>())
+                        .merge(move, weight, Integer::sum);
+            }
+            board.makeMove(move);
+            alliance ^= 1;
+            ply++;
+        }
+    }
+
+    /**
+     * Splits the movetext of a game into its moves. Comments, variations, numeric annotation glyphs, move numbers and
+     * the result are left out.
+     *
+     * @param moveText The movetext of a game.
+     * @return The moves in SAN, for example "e4", "Nxf3+" or "exd8=Q".
+     */
+    static List<String> tokens(String moveText) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        int variationDepth = 0;
+        boolean inComment = false;
+        boolean inLineComment = false;
+        for (int i = 0; i <= moveText.length(); i++) {
+            char character = i < moveText.length() ? moveText.charAt(i) : ' ';
+            if (inComment) {
+                inComment = character != '}';
+                continue;
+            }
+            if (inLineComment) {
+                inLineComment = character != '\n';
+                continue;
+            }
+            if (character == '{' || character == ';' || character == '(' || character == ')'
+                    || Character.isWhitespace(character)) {
+                if (token.length() > 0) {
+                    addToken(tokens, token.toString(), variationDepth);
+                    token.setLength(0);
+                }
+                if (character == '{') {
+                    inComment = true;
+                } else if (character == ';') {
+                    inLineComment = true;
+                } else if (character == '(') {
+                    variationDepth++;
+                } else if (character == ')') {
+                    variationDepth = Math.max(0, variationDepth - 1);
+                }
+            } else {
+                token.append(character);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Adds a token of the movetext to the moves, unless it is not a move of the main line.
+     *
+     * @param tokens         The moves.
+     * @param token          A token of the movetext, for example "12.", "12.Nf3", "$1" or "1-0".
+     * @param variationDepth The number of variations that the token is in, 0 for the main line.
+     */
+    private static void addToken(List<String> tokens, String token, int variationDepth) {
+        if (variationDepth > 0 || token.startsWith("$")) {
+            return;
+        }
+        String move = token.replaceFirst("^[0-9]+\\.*", "");
+        if (move.isEmpty() || move.equals("*") || move.equals("1-0") || move.equals("0-1") || move.equals("1/2-1/2")) {
+            return;
+        }
+        tokens.add(move);
+    }
+
+    /**
+     * Calculates the weight of a move from the result of the game.
+     *
+     * @param result   The result of the game: "1-0", "0-1", "1/2-1/2" or "*".
+     * @param alliance The alliance that played the move.
+     * @return 2 if the alliance won, 0 if it lost, 1 otherwise.
+     */
+    static int weight(String result, int alliance) {
+        String win = alliance == Constans.HUMAN ? "1-0" : "0-1";
+        String loss = alliance == Constans.HUMAN ? "0-1" : "1-0";
+        if (result.equals(win)) {
+            return 2;
+        } else if (result.equals(loss)) {
+            return 0;
+        }
+        return 1;
+    }
+
+    /**
+     * Finds the legal move that a move in standard algebraic notation (SAN) stands for. White is Constans.HUMAN and
+     * black is Constans.AI, as in Fen.
+     *
+     * @param board    The board that holds the position.
+     * @param alliance The alliance that is about to move.
+     * @param san      The move in SAN, for example "e4", "Nbd7", "exd8=Q+" or "R1e2".
+     * @return An int value that represents the move, or Move.NO_MOVE if the move is not legal, is a castling or an
+     * underpromotion, or cannot be read.
+     */
+    static int parseSan(BitBoard board, int alliance, String san) {
+        String text = san.replaceAll("[+#!?]", "");
+        if (text.startsWith("O-O") || text.startsWith("0-0")) {
+            return Move.NO_MOVE;
+        }
+
+        int promotionType = Constans.NO_PIECE;
+        int equalsSign = text.indexOf('=');
+        if (equalsSign >= 0) {
+            promotionType = equalsSign + 1 < text.length() ? PIECE_LETTERS.indexOf(text.charAt(equalsSign + 1)) : -1;
+            text = text.substring(0, equalsSign);
+        } else if (text.length() > 2 && "NBRQ".indexOf(text.charAt(text.length() - 1)) >= 0
+                && Character.isDigit(text.charAt(text.length() - 2))) {
+            promotionType = PIECE_LETTERS.indexOf(text.charAt(text.length() - 1));
+            text = text.substring(0, text.length() - 1);
+        }
+        if (promotionType != Constans.NO_PIECE && promotionType != Constans.QUEEN) {
+            return Move.NO_MOVE;
+        }
+
+        int pieceType = Constans.PAWN;
+        if (!text.isEmpty() && "NBRQK".indexOf(text.charAt(0)) >= 0) {
+            pieceType = PIECE_LETTERS.indexOf(text.charAt(0));
+            text = text.substring(1);
+        }
+        text = text.replace("x", "").replace(":", "").replace("-", "");
+        if (text.length() < 2 || text.length() > 4) {
+            return Move.NO_MOVE;
+        }
+        int destinationColumn = text.charAt(text.length() - 2) - 'a';
+        int destinationRow = 8 - (text.charAt(text.length() - 1) - '0');
+        if (!Move.stillOnBoard(destinationRow, destinationColumn)) {
+            return Move.NO_MOVE;
+        }
+        int destination = destinationRow * 8 + destinationColumn;
+        String disambiguation = text.substring(0, text.length() - 2);
+
+        MoveList legalMoves = new MoveList();
+        Board.allLegalMoves(board, alliance, legalMoves);
+        int found = Move.NO_MOVE;
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int move = legalMoves.get(i);
+            if (Move.destination(move) != destination || Move.pieceType(move) != pieceType
+                    || Move.promotionType(move) != promotionType
+                    || !matchesOrigin(Move.origin(move), disambiguation)) {
+                continue;
+            }
+            if (found != Move.NO_MOVE) {
+                return Move.NO_MOVE;
+            }
+            found = move;
+        }
+        return found;
+    }
+
+    /**
+     * Checks the origin of a move against the disambiguation of a SAN move, for example "b" in "Nbd7" or "e2" in
+     * "Qe2e4".
+     *
+     * @param origin         The ID of the field (0-63) that the piece moves from.
+     * @param disambiguation The file, the rank, both or neither of the origin.
+     * @return true if the origin matches.
+     */
+    private static boolean matchesOrigin(int origin, String disambiguation) {
+        for (char character : disambiguation.toCharArray()) {
+            if (character >= 'a' && character <= 'h') {
+                if (origin % 8 != character - 'a') {
+                    return false;
+                }
+            } else if (character >= '1' && character <= '8') {
+                if (origin / 8 != 8 - (character - '0')) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the weights of one map to another.
+     *
+     * @param target The map that the weights are added to.
+     * @param source The map whose weights are added.
+     */
+    static void merge(Map<Long, Map<Integer, Integer>> target, Map<Long, Map<Integer, Integer>> source) {
+        for (Map.Entry<Long, Map<Integer, Integer>> position : source.entrySet()) {
+            Map<Integer, Integer> moves = target.computeIfAbsent(position.getKey(), key -> new HashMap<>());
+            for (Map.Entry<Integer, Integer> move : position.getValue().entrySet()) {
+                moves.merge(move.getKey(), move.getValue(), Integer::sum);
+            }
+        }
+    }
+}
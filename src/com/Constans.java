@@ -32,21 +32,33 @@ public class Constans {
     public static final String USER_KING = "A";
 
     /**
-     * A constant String variable that holds a double space. It is used when creating a move that is not an en passant move.
+     * Constant integer variables that identify the AI's and the user's alliance, for example in the bitboard
+     * representation of the board.
      */
-    public static final String DOUBLE_SPACE = "  ";
+    public static final int AI = 0;
+    public static final int HUMAN = 1;
 
     /**
-     * Constant integer variables that indicate whether at the given time in the game it it the AI's or user's turn to move.
-     * These variables are used by the AI when evaluating the possible outcomes of moves.
+     * Constant integer variables that identify the piece types in the bitboard representation of the board (see BitBoard).
+     * NO_PIECE stands for an empty field.
      */
-    public static final Integer AI = 0;
-    public static final Integer HUMAN = 1;
+    public static final int NO_PIECE = 0;
+    public static final int PAWN = 1;
+    public static final int KNIGHT = 2;
+    public static final int BISHOP = 3;
+    public static final int ROOK = 4;
+    public static final int QUEEN = 5;
+    public static final int KING = 6;
 
     /**
-     * Constant integer variables that hold a value that the AI uses for evaluating the board.
+     * The one-character representation of the user's pieces indexed by piece type. The AI's pieces use the lower case
+     * version of the same letters.
      */
-    public static final Integer MULTIPLIIER_AI = -1;
-    public static final Integer MULTIPLIIER_USER = 1;
+    public static final String[] PIECE_LETTERS = {EMPTY_FIELD, USER_PAWN, USER_KNIGHT, USER_BISHOP, USER_ROOK, USER_QUEEN, USER_KING};
+
+    /**
+     * The pre-defined values of the pieces indexed by piece type. The AI uses them when evaluating the board.
+     */
+    public static final int[] PIECE_VALUES = {0, 100, 300, 300, 500, 1000, 10000};
 }
 
@@ -1,263 +1,604 @@
 package com;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * This class provides functionality for choosing moves that the machine responds with to user moves.
  * Tis functionality is provided by implementing the Minimax and Alpha - Beta Pruning algorithms and their
  * static evaluator function(s).
+ * <p>
+ * The search itself runs in Searcher objects. With more than one thread (see setThreads()) the helper searchers work
+ * on the same position in parallel and share their results through the transposition table (Lazy SMP), while the
+ * result of the main searcher is played.
  *
  * @author Janos Nagy
  */
 
-import static com.Board.mirrorBoardHorizontally;
-
 public class Decision {
     /**
-     * This variable determines how many times alphaBeta() calls itself.
-     * It represents the amount of steps that aplphaBeta() thinks ahead.
+     * This variable determines the maximum number of times alphaBeta() calls itself.
+     * It represents the largest amount of steps that aplphaBeta() thinks ahead. The search normally stops earlier,
+     * when its time budget (see moveTime) runs out. It can be changed with the chess.depth system property; depths
+     * beyond MAX_PLY - 1 are searched to MAX_PLY - 1.
      */
-    static int globalDepth = 4;
+    static int globalDepth = Integer.getInteger("chess.depth", 64);
 
     /**
-     * Evaluates the board by adding up the pre-defined values of all pieces that belong to one alliance
-     * and compares it to the sum of pre-defined values of the other alliance's pieces.
+     * The default time budget of a move in milliseconds.
+     */
+    public static final long DEFAULT_MOVE_TIME = 1000;
+
+    /**
+     * The time budget of the AI's moves in milliseconds, 0 for no time limit. It can be changed with the
+     * chess.movetime system property, for example: java -Dchess.movetime=5000 com.Main
+     */
+    static long moveTime = Long.getLong("chess.movetime", DEFAULT_MOVE_TIME);
+
+    /**
+     * The maximum number of positions that the AI's search may visit, 0 for no limit. It can be changed with the
+     * chess.nodes system property.
+     */
+    static long nodeBudget = Long.getLong("chess.nodes", 0);
+
+    /**
+     * Enables null-move pruning, see Searcher.alphaBeta(). It can be switched off with the chess.nullmove system
+     * property, for example: java -Dchess.nullmove=false com.Bench
+     */
+    static volatile boolean nullMovePruning = Boolean.parseBoolean(System.getProperty("chess.nullmove", "true"));
+
+    /**
+     * Enables late move reductions, see Searcher.alphaBeta(). It can be switched off with the chess.lmr system
+     * property.
+     */
+    static volatile boolean lateMoveReductions = Boolean.parseBoolean(System.getProperty("chess.lmr", "true"));
+
+    /**
+     * Enables pondering: while the user thinks, the AI searches the position after the reply it expects, see
+     * Engine. It can be switched off with the chess.ponder system property.
+     */
+    static volatile boolean pondering = Boolean.parseBoolean(System.getProperty("chess.ponder", "true"));
+
+    /**
+     * The opening book that is asked before every search, see bookMove(). It is read from the file named by the
+     * chess.book system property (book.bin by default); null if there is no such file.
+     */
+    static volatile OpeningBook openingBook = OpeningBook.load(System.getProperty("chess.book", "book.bin"));
+
+    /**
+     * The searchers check the time and node budget once every CHECK_INTERVAL positions, so that reading the clock
+     * costs next to nothing. It has to be a power of two.
+     */
+    static final int CHECK_INTERVAL = 2048;
+
+    /**
+     * The value of a position where the side to move is in checkmate. The number of moves that lead to the checkmate
+     * is added to it, so that the AI prefers quicker checkmates and delays being checkmated.
+     */
+    public static final int MATE_SCORE = 100000;
+
+    /**
+     * A value larger than the value of any position. It serves as the initial alpha and beta bounds of the search.
+     */
+    public static final int INFINITY = 1000000;
+
+    /**
+     * The maximum number of steps between the root of the decision tree and any position that is searched.
+     */
+    public static final int MAX_PLY = 128;
+
+    /**
+     * The largest number of moves of the principal variation of a position that is found in the tablebases.
+     */
+    static final int MAX_TABLEBASE_MOVES = 16;
+
+    /**
+     * The default size of the transposition table in megabytes. It can be changed with the chess.hash system
+     * property, for example: java -Dchess.hash=256 com.Main
+     */
+    public static final int DEFAULT_HASH_SIZE = 64;
+
+    /**
+     * The transposition table that remembers the results of the search between calls of alphaBeta() and between
+     * the moves of the game. It is shared by all searchers.
+     */
+    static TranspositionTable transpositionTable = new TranspositionTable(Integer.getInteger("chess.hash", DEFAULT_HASH_SIZE));
+
+    /**
+     * The number of positions visited by all searchers in the current search, updated once every CHECK_INTERVAL
+     * positions by each searcher.
+     */
+    static final AtomicLong searchedNodes = new AtomicLong();
+
+    /**
+     * Set when the current search has to stop. Every searcher returns from alphaBeta() immediately after it is set.
+     */
+    static volatile boolean stopped;
+
+    /**
+     * The System.nanoTime() value at which the current search has to stop, or 0 if there is no time limit.
+     */
+    private static long deadline;
+
+    /**
+     * The maximum number of positions that the current search may visit, or 0 if there is no limit.
+     */
+    private static long nodeLimit;
+
+    /**
+     * Set while the current search is pondering, see ponder(). The budget of the search is only enforced once it is
+     * set to true. It is null if the current search is not pondering.
+     */
+    private static AtomicBoolean ponderHit;
+
+    /**
+     * The flag that cancels the current search, see search(BitBoard, int, AtomicBoolean). Unlike stopped it belongs
+     * to a single search and is never reset by the search, so a caller can cancel a search before it has even
+     * started. It is null if the current search cannot be cancelled this way.
+     */
+    private static AtomicBoolean cancelled;
+
+    /**
+     * The searcher whose result is played. It runs in the thread that calls search().
+     */
+    private static final Searcher mainSearcher = new Searcher(true);
+
+    /**
+     * The helper searchers, one per additional thread.
+     */
+    private static Searcher[] helpers = new Searcher[0];
+
+    /**
+     * The threads that run the helper searchers, or null if the search is single-threaded.
+     */
+    private static ExecutorService helperThreads;
+
+    static {
+        setThreads(Integer.getInteger("chess.threads", 1));
+    }
+
+    /**
+     * Changes the size of the transposition table. All remembered results are lost.
      *
-     * @param depth This parameter indicates the level of the decision tree that this function was called on.
-     * @return An integer value that represents the difference between the sum of all values of the pieces of the two alliances.
+     * @param megabytes The size of the table in megabytes.
      */
-    public static int getMaterialEvaluation(int depth) {
+    public static void setHashSize(int megabytes) {
+        transpositionTable.resize(megabytes);
+    }
 
-        int result = 0;
-        result += getMaterialValue();
-        mirrorBoardHorizontally();
-        result -= getMaterialValue();
-        mirrorBoardHorizontally();
-        return -(result + depth * 50);
+    /**
+     * @return The transposition table, for example to read its counters.
+     */
+    public static TranspositionTable getTranspositionTable() {
+        return transpositionTable;
     }
 
     /**
-     * In the alphaBeta() function, player variable can have two values. These two values indicate in which alliance's
-     * perspective the board is being evaluated. togglePlayer() is used in alphaBeta() for changing the value of the player
-     * variable in an alternating fashion.
+     * Changes the number of threads that search a position. It can also be set with the chess.threads system
+     * property, for example: java -Dchess.threads=8 com.Main
      *
-     * @param player Holds an integer value that indicates in which alliance's perspective the board is being evaluated.
-     * @return An integer value zero if the taken parameter's value (player) was one.
-     * An integer value one if the taken parameter's value (player) was zero.
+     * @param threads The number of threads, at least 1. With 1 thread the search runs in the calling thread only.
      */
-    private static int togglePlayer(int player) {
-        if (player == Constans.AI) {
-            return Constans.HUMAN;
+    public static synchronized void setThreads(int threads) {
+        if (helperThreads != null) {
+            helperThreads.shutdown();
+            helperThreads = null;
+        }
+        int helperCount = Math.max(0, threads - 1);
+        helpers = new Searcher[helperCount];
+        for (int i = 0; i < helperCount; i++) {
+            helpers[i] = new Searcher(false);
+        }
+        if (helperCount > 0) {
+            helperThreads = Executors.newFixedThreadPool(helperCount, runnable -> {
+                Thread thread = new Thread(runnable, "search helper");
+                thread.setDaemon(true);
+                return thread;
+            });
         }
-        return Constans.AI;
     }
 
     /**
-     * In the alphaBeta() function, the sum of the values of all pieces of one alliance is multiplied by 1 or -1
-     * depending on which alliance's perspective is being evaluated. getMultiplier() returns the multiplier corresponding
-     * to the integer value taken as parameter.
+     * Switches null-move pruning on or off, see nullMovePruning.
      *
-     * @param player Holds an integer value that indicates in which alliance's perspective the board is being evaluated.
-     * @return An integer value either 1 or -1.
+     * @param enabled true to prune with null moves.
      */
-    private static int getMultiplier(int player) {
-        if (player == Constans.AI) {
-            return Constans.MULTIPLIIER_AI;
-        }
-        return Constans.MULTIPLIIER_USER;
+    public static void setNullMovePruning(boolean enabled) {
+        nullMovePruning = enabled;
+    }
+
+    /**
+     * Switches late move reductions on or off, see lateMoveReductions.
+     *
+     * @param enabled true to reduce late quiet moves.
+     */
+    public static void setLateMoveReductions(boolean enabled) {
+        lateMoveReductions = enabled;
+    }
+
+    /**
+     * Switches pondering on or off, see pondering.
+     *
+     * @param enabled true to search the expected reply of the user while the user thinks.
+     */
+    public static void setPondering(boolean enabled) {
+        pondering = enabled;
+    }
+
+    /**
+     * @return true if the AI searches the expected reply of the user while the user thinks.
+     */
+    public static boolean isPondering() {
+        return pondering;
     }
 
     /**
-     * This method returns the appropriate move according to the depth of the decision tree that it was called on.
+     * Replaces the opening book, see openingBook.
      *
-     * @param result alphaBeta() returns a String that contains a move (the first 7 characters) and a value that
-     *               the move was associated with (the characters after the seventh).
-     *               The result parameter is a String value that represents a move that was extracted from the return
-     *               value of the alphaBeta() function.
-     * @param move   is a String value that represents a move that is a response to another move at a previous layer of
-     *               the decision tree. Initially, at level 4 in the decision tree, this value is an empty string: "".
-     * @param depth  an int value that represents the level of the decision tree that this function was called on.
-     * @return returns the String value held in result parameter if the depth of the decision tree equals to the
-     * global depth (4) or
-     * returns the String value held in the move parameter otherwise.
-     */
-    private static String getMoveOnDepth(String result, String move, int depth) {
-        if (depth == globalDepth) {
-            return result;
+     * @param book The new opening book, or null to play without a book.
+     */
+    public static void setOpeningBook(OpeningBook book) {
+        openingBook = book;
+    }
+
+    /**
+     * Looks up the given position in the opening book. A book move is played instead of searching the position.
+     *
+     * @param board    The board that holds the position.
+     * @param alliance The alliance that is about to move.
+     * @return A SearchResult object that holds the book move, or null if there is no book or the position is not in
+     * it.
+     */
+    public static SearchResult bookMove(BitBoard board, int alliance) {
+        OpeningBook book = openingBook;
+        if (book == null) {
+            return null;
         }
-        return move;
+        int move = book.probe(board, alliance);
+        if (move == Move.NO_MOVE) {
+            return null;
+        }
+        return new SearchResult(move, 0, 0, 0, new int[]{move});
+    }
+
+    /**
+     * @return The number of threads that search a position.
+     */
+    public static int getThreads() {
+        return helpers.length + 1;
+    }
+
+    /**
+     * Evaluates the board by adding up the pre-defined values of all pieces that belong to one alliance
+     * and compares it to the sum of pre-defined values of the other alliance's pieces.
+     *
+     * @param alliance The alliance that is about to move, Constans.AI or Constans.HUMAN.
+     * @return An integer value that represents the difference between the sum of all values of the pieces of the two
+     * alliances, from the perspective of the alliance that is about to move.
+     */
+    public static int getMaterialEvaluation(int alliance) {
+        return getMaterialEvaluation(Board.position, alliance);
     }
 
     /**
-     * This function ensures that the minimax algorithm's functionality in our alpha-beta pruning algorithm operates
-     * correctly. Meaning that in the minimizing layers of the decision tree this function returns a move that is
-     * associated with an integer value that is lower than or equals to the integer value held in the beta parameter.
-     * While in maximizing layers it returns a moe that is  associated with an integer value that is larger than the
-     * integer value held in the alpha parameter.
+     * Evaluates the position held by the given board, see getMaterialEvaluation(int).
      *
-     * @param alpha  the current int value of alpha in the alphaBeta() function.
-     * @param beta   the current int value of beta in the alphaBeta() function.
-     * @param depth  an int value that represents the level of the decision tree that this function was called on.
-     * @param result the String value that the previous alphaBeta() call returned. Contains a move(char 0-6) and a value
-     *               assigned to it (char 7-*).
-     * @param move   is a String value that represents a move that is a response to another move at a previous layer of
-     *               the decision tree. Initially, at level 4 in the decision tree, this value is an empty string: "".
-     *               In getMinMaxMove this variable will be assigned a new value so that it holds the chosen move
-     *               in the current layer of the decision tree.
-     * @param player is an int value either 0 or 1. In this context it indicates if he current layer is a minimizing or
-     *               a maximizing layer.
-     * @return a String value that holds the chosen move.
-     */
-    private static String getMinMaxMove(int alpha, int beta, int depth, String result, String move, int player) {
-        if (player == 0) {
-            if (getMoveValue(result) <= beta) {
-                move = getMoveOnDepth(result.substring(0, 7), move, depth);
-            }
-        } else {
-            if (getMoveValue(result) > alpha) {
-                move = getMoveOnDepth(result.substring(0, 7), move, depth);
-            }
+     * @param board    The board that holds the position.
+     * @param alliance The alliance that is about to move, Constans.AI or Constans.HUMAN.
+     * @return An integer value that represents the difference between the sum of all values of the pieces of the two
+     * alliances, from the perspective of the alliance that is about to move.
+     */
+    static int getMaterialEvaluation(BitBoard board, int alliance) {
+        return board.material(alliance) - board.material(alliance ^ 1);
+    }
+
+    /**
+     * Evaluates the position held by the given board: the material (see getMaterialEvaluation()), the placement of
+     * the pieces blended by the game phase (see PieceSquareTables), the pawn structure and the pawns that shield the
+     * kings (see PawnStructure). The material and the placement are kept up to date by the board as the moves are
+     * made, and the pawn structure is read from the pawn hash table of the searcher whenever possible.
+     *
+     * @param board     The board that holds the position.
+     * @param alliance  The alliance that is about to move, Constans.AI or Constans.HUMAN.
+     * @param pawnTable The pawn hash table of the calling searcher.
+     * @return An integer value that represents the value of the position from the perspective of the alliance that
+     * is about to move.
+     */
+    static int evaluate(BitBoard board, int alliance, PawnTable pawnTable) {
+        int pawnStructure = pawnTable.evaluate(board);
+        if (alliance == Constans.AI) {
+            pawnStructure = -pawnStructure;
         }
-        return move;
+        return getMaterialEvaluation(board, alliance) + PieceSquareTables.evaluate(board, alliance) + pawnStructure
+                + PawnStructure.kingShield(board, alliance) - PawnStructure.kingShield(board, alliance ^ 1);
+    }
+
+    /**
+     * @return The pawn hash table of the searcher whose result is played, for example to read its counters.
+     */
+    public static PawnTable getPawnTable() {
+        return mainSearcher.getPawnTable();
+    }
+
+    /**
+     * This function is responsible for selecting the most optimal move that can be a response from the AI to the
+     * user's move, within the time and node budget set by the chess.movetime and chess.nodes system properties.
+     *
+     * @param alliance The alliance that is about to move, normally Constans.AI.
+     * @return A SearchResult object that holds the chosen move and the value associated with it.
+     */
+    public static SearchResult think(int alliance) {
+        return think(Board.position, alliance);
+    }
+
+    /**
+     * Selects the move of the given alliance in the position held by the given board, within the time and node
+     * budget set by the chess.movetime and chess.nodes system properties, see think(int).
+     *
+     * @param board    The board that holds the position. It is not changed by the search.
+     * @param alliance The alliance that is about to move.
+     * @return A SearchResult object that holds the chosen move and the value associated with it.
+     */
+    public static SearchResult think(BitBoard board, int alliance) {
+        return think(board, alliance, null);
+    }
+
+    /**
+     * Selects the move of the given alliance like think(BitBoard, int), but the caller can cancel the search at any
+     * time by setting the given flag, even before the search has started. A cancelled search returns as soon as it
+     * notices the flag, and its result is meaningless.
+     *
+     * @param board     The board that holds the position. It is not changed by the search.
+     * @param alliance  The alliance that is about to move.
+     * @param cancelled The flag that the caller sets to true to cancel the search, or null.
+     * @return A SearchResult object that holds the chosen move and the value associated with it.
+     */
+    public static SearchResult think(BitBoard board, int alliance, AtomicBoolean cancelled) {
+        return search(board, alliance, globalDepth, moveTime, nodeBudget, null, cancelled);
     }
 
     /**
-     * This method compares the int value held in alpha parameter to the value (held as a String) in result parameter and assigns the value
-     * found in result to alpha if the value found in result is larger.
+     * Searches the current position to a fixed depth, without any time or node budget.
      *
-     * @param alpha  the current int value of alpha in the alphaBeta() function.
-     * @param result the String value that the previous alphaBeta() call returned. Contains a move(char 0-6) and a value
-     *               assigned to it (char 7-*).
-     * @return an int that represents the updated value of alpha.
-     */
-    // alpha
-    private static int getMax(int alpha, String result) {
-        if (getMoveValue(result) > alpha) {
-            alpha = getMoveValue(result);
+     * @param alliance The alliance that is about to move.
+     * @param depth    an int value that represents the amount of steps that the search thinks ahead.
+     * @return A SearchResult object that holds the chosen move and the value associated with it.
+     */
+    public static SearchResult search(int alliance, int depth) {
+        return search(Board.position, alliance, depth, 0, 0);
+    }
+
+    /**
+     * Searches the current position within the given budget, see search(BitBoard, int, int, long, long).
+     *
+     * @param alliance         The alliance that is about to move.
+     * @param maxDepth         The depth of the last iteration.
+     * @param timeBudgetMillis The time budget of the search in milliseconds, 0 for no time limit.
+     * @param nodeBudget       The maximum number of positions that the search may visit, 0 for no limit.
+     * @return A SearchResult object that holds the chosen move and the value associated with it.
+     */
+    public static SearchResult search(int alliance, int maxDepth, long timeBudgetMillis, long nodeBudget) {
+        return search(Board.position, alliance, maxDepth, timeBudgetMillis, nodeBudget);
+    }
+
+    /**
+     * This function selects the most optimal move of the given alliance with iterative deepening: it searches the
+     * position to depth 1, 2, 3, ... until the maximum depth is reached or the budget runs out (see
+     * Searcher.iterativeDeepening()). The board does not need to be mirrored: the search generates the moves of the
+     * given alliance directly, and it works on copies of the position, so the given board is not touched.
+     * <p>
+     * The helper searchers start together with the main searcher and are stopped as soon as the main searcher
+     * returns its result. Only one search runs at a time; stop() ends it early.
+     *
+     * @param board            The board that holds the position. It must not be changed while the search runs.
+     * @param alliance         The alliance that is about to move.
+     * @param maxDepth         The depth of the last iteration.
+     * @param timeBudgetMillis The time budget of the search in milliseconds, 0 for no time limit.
+     * @param nodeBudget       The maximum number of positions that the search may visit, 0 for no limit.
+     * @return A SearchResult object that holds the chosen move and the value associated with it. The move is
+     * Move.NO_MOVE if there is no legal move on the board, or if the search was stopped before it completed its
+     * first iteration. The node count includes the helpers.
+     */
+    public static SearchResult search(BitBoard board, int alliance, int maxDepth, long timeBudgetMillis,
+                                      long nodeBudget) {
+        return search(board, alliance, maxDepth, timeBudgetMillis, nodeBudget, null, null);
+    }
+
+    /**
+     * Searches the position that the AI expects after the reply of the user, while the user is still thinking.
+     * The search has no budget until the user actually plays the expected reply (a ponder hit) and the caller sets
+     * the given flag. From then on the normal budget applies, measured from the start of the pondering, so the
+     * search keeps going with the time it has already spent. If the user plays something else, the caller cancels
+     * the search with the given cancellation flag; the positions it searched stay in the transposition table.
+     *
+     * @param board     The board that holds the position after the expected reply.
+     * @param alliance  The alliance that is about to move, normally Constans.AI.
+     * @param ponderHit A flag that the caller sets to true on a ponder hit.
+     * @param cancelled The flag that the caller sets to true to cancel the search, see think(BitBoard, int,
+     *                  AtomicBoolean).
+     * @return A SearchResult object that holds the chosen move and the value associated with it.
+     */
+    public static SearchResult ponder(BitBoard board, int alliance, AtomicBoolean ponderHit,
+                                      AtomicBoolean cancelled) {
+        return search(board, alliance, globalDepth, moveTime, nodeBudget, ponderHit, cancelled);
+    }
+
+    /**
+     * Searches the position within the given budget, see search(BitBoard, int, int, long, long). A position that is
+     * found in the tablebases (see Tablebase) is not searched: the best move and the exact value are read from them.
+     *
+     * @param board            The board that holds the position. It must not be changed while the search runs.
+     * @param alliance         The alliance that is about to move.
+     * @param maxDepth         The depth of the last iteration. Depths beyond MAX_PLY - 1 are searched to MAX_PLY - 1.
+     * @param timeBudgetMillis The time budget of the search in milliseconds, 0 for no time limit.
+     * @param nodeBudget       The maximum number of positions that the search may visit, 0 for no limit.
+     * @param ponderHit        null for a normal search, or the flag that starts the budget of a pondering search,
+     *                         see ponder().
+     * @param cancelled        null, or the flag that cancels the search, see think(BitBoard, int, AtomicBoolean).
+     * @return A SearchResult object that holds the chosen move and the value associated with it.
+     */
+    private static synchronized SearchResult search(BitBoard board, int alliance, int maxDepth, long timeBudgetMillis,
+                                                    long nodeBudget, AtomicBoolean ponderHit,
+                                                    AtomicBoolean cancelled) {
+        int lastDepth = Math.min(maxDepth, MAX_PLY - 1);
+        if (cancelled != null && cancelled.get()) {
+            return new SearchResult(Move.NO_MOVE, 0, 0, 0);
         }
-        return alpha;
+        MoveList legalMoves = new MoveList();
+        Board.allLegalMoves(board, alliance, legalMoves);
+        if (legalMoves.size() == 0) {
+            return new SearchResult(Move.NO_MOVE, getTerminalValue(board, alliance, 0), 0, 0);
+        }
+
+        int tablebaseScore = Tablebase.score(board, alliance, 0);
+        if (tablebaseScore != Tablebase.NOT_FOUND) {
+            int[] principalVariation = Tablebase.principalVariation(board, alliance, MAX_TABLEBASE_MOVES);
+            if (principalVariation.length > 0) {
+                return new SearchResult(principalVariation[0], tablebaseScore, 0, 0, principalVariation);
+            }
+        }
+
+        transpositionTable.newSearch();
+        searchedNodes.set(0);
+        stopped = false;
+        deadline = timeBudgetMillis > 0 ? System.nanoTime() + timeBudgetMillis * 1000000 : 0;
+        nodeLimit = nodeBudget;
+        Decision.ponderHit = ponderHit;
+        Decision.cancelled = cancelled;
+
+        List<Future<SearchResult>> helperResults = new ArrayList<>();
+        for (int i = 0; i < helpers.length; i++) {
+            Searcher helper = helpers[i];
+            int firstDepth = 1 + (i + 1) % 2;
+            helper.prepare(board, alliance);
+            helperResults.add(helperThreads.submit(() -> helper.iterativeDeepening(firstDepth, lastDepth)));
+        }
+        mainSearcher.prepare(board, alliance);
+        SearchResult result = mainSearcher.iterativeDeepening(1, lastDepth);
+        stopped = true;
+
+        long nodes = mainSearcher.getNodes();
+        for (int i = 0; i < helpers.length; i++) {
+            waitFor(helperResults.get(i));
+            nodes += helpers[i].getNodes();
+        }
+        return new SearchResult(result.getMove(), result.getScore(), result.getDepth(), nodes,
+                result.getPrincipalVariation());
     }
 
     /**
-     * This method compares the int value held in beta parameter to the value (held as a String) in result parameter
-     * and assigns the value found in result to beta if the value found in result is smaller than or equals to beta.
+     * Waits until a helper searcher returns.
      *
-     * @param beta   the current int value of beta in the alphaBeta() function.
-     * @param result the String value that the previous alphaBeta() call returned. Contains a move(char 0-6) and a value
-     *               assigned to it (char 7-*).
-     * @return an int that represents the updated value of beta.
-     */
-    // beta
-    private static int getMin(int beta, String result) {
-        if (getMoveValue(result) <= beta) {
-            beta = getMoveValue(result);
+     * @param helperResult The result of the helper.
+     */
+    private static void waitFor(Future<SearchResult> helperResult) {
+        try {
+            helperResult.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A search helper failed", e.getCause());
         }
-        return beta;
     }
 
     /**
-     * This function orders the beta value to the move taken as a parameter if player parameter's current value is 0 and
-     * orders the alpha value to the move if player parameter's current value is 1.
+     * Stops the search that is currently running, for example because the game it belongs to was abandoned. The
+     * search returns as soon as its searchers notice the signal, with the result of its last completed iteration.
+     * It has no effect on searches that start later, so a signal that arrives just before a search starts is lost;
+     * a caller that needs to cancel a particular search gives it a cancellation flag, see think(BitBoard, int,
+     * AtomicBoolean).
+     */
+    public static void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Stops the current search if its time or node budget has run out. It is called by the main searcher once every
+     * CHECK_INTERVAL positions, after its first iteration, so that the search always has a move to return.
+     * A pondering search has no budget until the ponder hit. A search whose cancellation flag is set stops at once,
+     * even if a stop() signal arrived before the search had started and was lost.
      *
-     * @param move   The chosen move.
-     * @param alpha  the current int value of alpha in the alphaBeta() function.
-     * @param beta   the current int value of beta in the alphaBeta() function.
-     * @param player is an int value either 0 for AI or 1 for user.
-     * @return A String value consisting of 7+ characters. The first 7 characters represent the move and the rest of the
-     * characters represent the value assigned to it. The assigned value is alpha if the current player is AI.
-     * Tha assigned value is beta if the current player is user.
-     */
-    private static String moveIfPlayerIsAi(String move, int alpha, int beta, int player) {
-        if (player == Constans.AI) {
-            move = move + beta;
-        } else {
-            move = move + alpha;
+     * @param totalNodes The number of positions visited by all searchers so far.
+     */
+    static void checkLimits(long totalNodes) {
+        if (cancelled != null && cancelled.get()) {
+            stopped = true;
+            return;
+        }
+        if (ponderHit != null && !ponderHit.get()) {
+            return;
+        }
+        if ((deadline != 0 && System.nanoTime() >= deadline) || (nodeLimit != 0 && totalNodes >= nodeLimit)) {
+            stopped = true;
         }
-        return move;
     }
 
     /**
-     * This method extracts the value associated with the move if any, from the move variable taken as a parameter.
+     * Checkmate values depend on the distance from the root of the decision tree, but the transposition table may
+     * hand a stored value to a search of the same position at a different distance. This function converts a
+     * checkmate value into a distance from the given position before it is stored.
      *
-     * @param move String that contains a move (the first 7 characters) and a value that the move was associated
-     *             with (the characters after the seventh).
-     * @return If the taken parameter holds a String value that is longer than 7 characters the function returns an int
-     * value that represents the result of the static evaluation of the move.
-     * Otherwise it returns the whole move variable as an int.
-     */
-    private static int getMoveValue(String move) {
-        if (move.length() > 7) {
-            return Integer.valueOf(move.substring(7));
+     * @param score The value of a position.
+     * @param ply   an int value that represents the amount of steps between the root of the decision tree and the position.
+     * @return The value that is stored in the transposition table.
+     */
+    static int scoreToTable(int score, int ply) {
+        if (score >= MATE_SCORE - MAX_PLY) {
+            return score + ply;
         }
-        return Integer.valueOf(move);
+        if (score <= -MATE_SCORE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
     }
 
     /**
-     * This recursive function is responsible for selecting the most optimal move that can be a
-     * response from the AI to the user's move.
+     * The opposite of scoreToTable(): converts a value read from the transposition table back into a value that is
+     * relative to the root of the decision tree.
      *
-     * @param depth  an int value that represents the level of the decision tree that this function was called on.
-     *               must be between (0-4)
-     * @param beta   holds the int value of the currently most valuable move at minimizing levels. It is set to 1000000 initially.
-     * @param alpha  holds the int value of the currently most valuable move at maximizing levels. It is set to -1000000 initially.
-     * @param move   a String value that represents a potential legal move that is currently being evaluated. It is set to an empty
-     *               String ("") initially.
-     * @param player is an int value either 0 for AI or 1 for user. It represents from whom perspective the board is
-     *               being evaluated at the most recent call af the alphaBeta() function.
-     * @return A String value that represents the chosen move (character 0-6) and value associated with it (char 7-*)
-     */
-    public static String alphaBeta(int depth, int beta, int alpha, String move, int player) {
-        String allLegalMoves = Board.allLegalMoves();
-        if (depth == 0 || allLegalMoves.length() == 0) {
-            int multiplier = getMultiplier(player);
-            return move + (Decision.getMaterialEvaluation(depth) * multiplier);
+     * @param score The value stored in the transposition table.
+     * @param ply   an int value that represents the amount of steps between the root of the decision tree and the position.
+     * @return The value of the position.
+     */
+    static int scoreFromTable(int score, int ply) {
+        if (score >= MATE_SCORE - MAX_PLY) {
+            return score - ply;
         }
-        player = togglePlayer(player);
-        for (int i = 0; i < allLegalMoves.length(); i += 7) {
-            Board.executeMove(allLegalMoves.substring(i, i + 7));
-            mirrorBoardHorizontally();
-            String result = alphaBeta(depth - 1, beta, alpha, allLegalMoves.substring(i, i + 7), player);
-            mirrorBoardHorizontally();
-            Board.undoMove(allLegalMoves.substring(i, i + 7));
-
-            move = getMinMaxMove(alpha, beta, depth, result, move, player);
-
-            if (player == Constans.AI) {
-                beta = getMin(beta, result);
-            } else {
-                alpha = getMax(alpha, result);
-            }
-            if (alpha >= beta) {
-                return moveIfPlayerIsAi(move, alpha, beta, player);
-            }
+        if (score <= -MATE_SCORE + MAX_PLY) {
+            return score + ply;
         }
-        return moveIfPlayerIsAi(move, alpha, beta, player);
+        return score;
     }
 
     /**
-     * This method calculates the value of all the pieces that currently belongs to the user's alliance.
+     * Evaluates a position where the side to move has no legal moves.
      *
-     * @return An int value that represents the value of all the pieces that currently belongs to the user's alliance.
-     */
-    public static int getMaterialValue() {
-        int result = 0;
-        for (int i = 0; i < 64; i++) {
-            switch (Board.chessBoard[i / 8][i % 8]) {
-                case Constans.USER_PAWN:
-                    result += 100;
-                    break;
-                case Constans.USER_KNIGHT:
-                case Constans.USER_BISHOP:
-                    result += 300;
-                    break;
-                case Constans.USER_ROOK:
-                    result += 500;
-                    break;
-                case Constans.USER_QUEEN:
-                    result += 1000;
-                    break;
-                case Constans.USER_KING:
-                    result += 10000;
-                    break;
-            }
+     * @param board    The board that holds the position.
+     * @param alliance The alliance that is about to move, Constans.AI or Constans.HUMAN.
+     * @param ply      an int value that represents the amount of steps between the root of the decision tree and the position.
+     * @return A large negative value if the side to move is in checkmate, 0 if it is a stalemate.
+     */
+    static int getTerminalValue(BitBoard board, int alliance, int ply) {
+        if (!Attacks.isSquareAttacked(board, board.kingSquare(alliance), alliance ^ 1)) {
+            return 0;
         }
-        return result;
+        return -MATE_SCORE + ply;
+    }
+
+    /**
+     * This method returns the value of all the pieces that currently belongs to the given alliance. The value is kept
+     * up to date by the board as pieces are placed and removed, so this costs the same at every leaf of the search.
+     *
+     * @param alliance Constans.AI or Constans.HUMAN.
+     * @return An int value that represents the value of all the pieces that currently belongs to the alliance.
+     */
+    public static int getMaterialValue(int alliance) {
+        return Board.position.material(alliance);
     }
 }
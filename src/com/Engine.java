@@ -0,0 +1,256 @@
+package com;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * This class runs the search of the AI in the background, so that the graphical user interface keeps responding
+ * while the AI thinks.
+ * <p>
+ * The search runs in a dedicated engine thread on a private copy of the position, so the GUI can keep painting
+ * Board.position in the meantime. The result is handed back on the Swing event dispatch thread. A search can be
+ * cancelled, for example when the user starts a new game: its result is then thrown away.
+ * <p>
+ * After the AI has moved, the engine can ponder: it plays the reply that the search expects from the user (the
+ * second move of the principal variation) on a copy of the position and searches the result while the user thinks.
+ * If the user plays that reply, the search simply goes on and is played as soon as its budget runs out (see
+ * Decision.ponder()). Otherwise it is cancelled and a new search starts, which still profits from the positions that
+ * the pondering left in the transposition table.
+ * <p>
+ * A search that fails with an exception is reported to the failure receiver of startSearch() instead of its result,
+ * so the engine never stays busy with a search that has died.
+ * <p>
+ * The methods of this class have to be called on the event dispatch thread.
+ *
+ * @author Janos Nagy
+ */
+public class Engine {
+    /**
+     * The thread that runs the searches, one at a time.
+     */
+    private final ExecutorService engineThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "engine");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The search that is running or waiting to run, or null.
+     */
+    private Future<?> currentSearch;
+
+    /**
+     * Identifies the latest search. A result is only published if no other search was started and no search was
+     * cancelled after its search started.
+     */
+    private int searchId;
+
+    /**
+     * Receives the result of the current search, or null while the current search is pondering.
+     */
+    private Consumer<SearchResult> onResult;
+
+    /**
+     * Receives the exception of the current search if it fails, or null while the current search is pondering.
+     */
+    private Consumer<RuntimeException> onFailure;
+
+    /**
+     * True while the current search is pondering and the user has not played the expected reply yet.
+     */
+    private boolean pondering;
+
+    /**
+     * The hash key of the position that is pondered, and the alliance that is about to move in it.
+     */
+    private long ponderKey;
+    private int ponderAlliance;
+
+    /**
+     * Set to true on a ponder hit, which starts the budget of the pondering search.
+     */
+    private AtomicBoolean ponderHit;
+
+    /**
+     * The cancellation flag of the current search, see Decision.think(BitBoard, int, AtomicBoolean). Every search
+     * gets its own flag, so cancelling a search that has not started yet cannot be undone by the search itself.
+     */
+    private AtomicBoolean cancelled;
+
+    /**
+     * The result of a pondering search that finished before the user moved, or null.
+     */
+    private SearchResult ponderResult;
+
+    /**
+     * Starts searching the current position in the engine thread. If the engine is pondering on the current position,
+     * the pondering search is used instead of starting a new one.
+     *
+     * @param alliance  The alliance that is about to move, normally Constans.AI.
+     * @param onResult  Receives the result of the search on the event dispatch thread, unless the search is
+     *                  cancelled.
+     * @param onFailure Receives the exception on the event dispatch thread if the search fails.
+     */
+    public void startSearch(int alliance, Consumer<SearchResult> onResult, Consumer<RuntimeException> onFailure) {
+        if (pondering && alliance == ponderAlliance && Board.position.getKey() == ponderKey) {
+            System.out.println("ponder hit");
+            pondering = false;
+            this.onResult = onResult;
+            this.onFailure = onFailure;
+            ponderHit.set(true);
+            if (ponderResult != null) {
+                int id = searchId;
+                SearchResult result = ponderResult;
+                SwingUtilities.invokeLater(() -> publish(id, result));
+            }
+            return;
+        }
+
+        cancel();
+        submit(Board.position.copy(), alliance, null, onResult, onFailure);
+    }
+
+    /**
+     * Starts pondering: searches the position after the reply that the given search result expects from the user.
+     * Nothing happens if pondering is switched off (see Decision.setPondering()), or if the principal variation does
+     * not contain a legal reply.
+     *
+     * @param alliance The alliance of the AI, which has just played the first move of the principal variation.
+     * @param result   The result of the search that chose the move.
+     */
+    public void startPondering(int alliance, SearchResult result) {
+        cancel();
+        int[] principalVariation = result.getPrincipalVariation();
+        if (!Decision.isPondering() || principalVariation.length < 2 || principalVariation[0] != result.getMove()) {
+            return;
+        }
+
+        BitBoard position = Board.position.copy();
+        MoveList replies = new MoveList();
+        Board.allLegalMoves(position, alliance ^ 1, replies);
+        if (!replies.contains(principalVariation[1])) {
+            return;
+        }
+        position.makeMove(principalVariation[1]);
+
+        pondering = true;
+        ponderKey = position.getKey();
+        ponderAlliance = alliance;
+        ponderHit = new AtomicBoolean();
+        System.out.println("pondering on " + Move.toString(principalVariation[1]));
+        submit(position, alliance, ponderHit, null, null);
+    }
+
+    /**
+     * Submits a search to the engine thread.
+     *
+     * @param position  The private copy of the position.
+     * @param alliance  The alliance that is about to move.
+     * @param ponderHit null for a normal search, or the flag that starts the budget of a pondering search.
+     * @param onResult  Receives the result of the search, or null while pondering.
+     * @param onFailure Receives the exception if the search fails, or null while pondering.
+     */
+    private void submit(BitBoard position, int alliance, AtomicBoolean ponderHit, Consumer<SearchResult> onResult,
+                        Consumer<RuntimeException> onFailure) {
+        int id = ++searchId;
+        AtomicBoolean cancelled = new AtomicBoolean();
+        this.cancelled = cancelled;
+        this.onResult = onResult;
+        this.onFailure = onFailure;
+        ponderResult = null;
+        currentSearch = engineThread.submit(() -> {
+            try {
+                SearchResult result = ponderHit == null
+                        ? Decision.think(position, alliance, cancelled)
+                        : Decision.ponder(position, alliance, ponderHit, cancelled);
+                SwingUtilities.invokeLater(() -> publish(id, result));
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                SwingUtilities.invokeLater(() -> fail(id, e));
+            }
+        });
+    }
+
+    /**
+     * Hands the result of a search to its receiver, unless the search was cancelled in the meantime. The result of a
+     * pondering search that finishes before the user moves is kept until the ponder hit.
+     *
+     * @param id     The id of the search.
+     * @param result The result of the search.
+     */
+    private void publish(int id, SearchResult result) {
+        if (id != searchId) {
+            return;
+        }
+        if (onResult == null) {
+            ponderResult = result;
+            return;
+        }
+        Consumer<SearchResult> receiver = onResult;
+        currentSearch = null;
+        onResult = null;
+        onFailure = null;
+        ponderResult = null;
+        receiver.accept(result);
+    }
+
+    /**
+     * Ends a search that failed with an exception, unless it was cancelled in the meantime, so that the engine is
+     * free for the next search. A pondering search that fails before the ponder hit is not reported: the engine
+     * simply stops pondering, and the search that starts when the user moves reports its own failure.
+     *
+     * @param id        The id of the search.
+     * @param exception The exception that ended the search.
+     */
+    private void fail(int id, RuntimeException exception) {
+        if (id != searchId) {
+            return;
+        }
+        Consumer<RuntimeException> receiver = onFailure;
+        currentSearch = null;
+        cancelled = null;
+        ponderHit = null;
+        onResult = null;
+        onFailure = null;
+        pondering = false;
+        ponderResult = null;
+        if (receiver != null) {
+            receiver.accept(exception);
+        }
+    }
+
+    /**
+     * @return true if a search was started and has not published its result or been cancelled yet. Pondering does
+     * not count as thinking, because the user is still to move.
+     */
+    public boolean isThinking() {
+        return currentSearch != null && !pondering;
+    }
+
+    /**
+     * Cancels the current search, if there is one, including pondering. Its result will not be published.
+     * <p>
+     * The cancellation flag of the search stops it even if it is just starting; Decision.stop() only makes a running
+     * search notice it sooner.
+     */
+    public void cancel() {
+        if (currentSearch == null) {
+            return;
+        }
+        searchId++;
+        currentSearch.cancel(false);
+        cancelled.set(true);
+        Decision.stop();
+        cancelled = null;
+        ponderHit = null;
+        currentSearch = null;
+        onResult = null;
+        onFailure = null;
+        pondering = false;
+        ponderResult = null;
+    }
+}
@@ -0,0 +1,103 @@
+package com;
+
+/**
+ * This class converts positions from and to the Forsyth-Edwards Notation (FEN), the standard way of writing down a
+ * chess position, for example "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1".
+ * <p>
+ * The user plays with the white pieces and the AI with the black pieces, so rank 8 of a FEN string is row 0 of the
+ * board. FEN uses the standard piece letters (N for knight, K for king), not the letters of Constans. The castling,
+ * en passant and move counter fields are ignored, because the program does not use them.
+ *
+ * @author Janos Nagy
+ */
+public class Fen {
+    /**
+     * The position of a new game.
+     */
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+
+    /**
+     * The FEN letters of the white pieces, indexed by piece type.
+     */
+    private static final String FEN_LETTERS = " PNBRQK";
+
+    /**
+     * Creates a board that holds the position described by a FEN string.
+     *
+     * @param fen A FEN string. Only the piece placement field is used.
+     * @return A new BitBoard object that holds the position.
+     */
+    public static BitBoard toBoard(String fen) {
+        BitBoard board = new BitBoard();
+        String placement = fen.trim().split(" +")[0];
+        int row = 0;
+        int column = 0;
+        for (char letter : placement.toCharArray()) {
+            if (letter == '/') {
+                row++;
+                column = 0;
+            } else if (Character.isDigit(letter)) {
+                column += letter - '0';
+            } else {
+                int pieceType = FEN_LETTERS.indexOf(Character.toUpperCase(letter));
+                if (pieceType <= Constans.NO_PIECE || row > 7 || column > 7) {
+                    throw new IllegalArgumentException("Invalid FEN: " + fen);
+                }
+                int alliance = Character.isUpperCase(letter) ? Constans.HUMAN : Constans.AI;
+                board.putPiece(alliance, pieceType, row * 8 + column);
+                column++;
+            }
+        }
+        if (Long.bitCount(board.pieces(Constans.HUMAN, Constans.KING)) != 1
+                || Long.bitCount(board.pieces(Constans.AI, Constans.KING)) != 1) {
+            throw new IllegalArgumentException("Invalid FEN, both sides need exactly one king: " + fen);
+        }
+        return board;
+    }
+
+    /**
+     * Reads the side to move of a FEN string.
+     *
+     * @param fen A FEN string.
+     * @return Constans.HUMAN if white is to move (or the field is missing), Constans.AI if black is to move.
+     */
+    public static int sideToMove(String fen) {
+        String[] fields = fen.trim().split(" +");
+        return fields.length > 1 && fields[1].equals("b") ? Constans.AI : Constans.HUMAN;
+    }
+
+    /**
+     * Creates the FEN string of a position.
+     *
+     * @param board    The board that holds the position.
+     * @param alliance The alliance that is about to move.
+     * @return A FEN string without castling rights and en passant field.
+     */
+    public static String fromBoard(BitBoard board, int alliance) {
+        StringBuilder fen = new StringBuilder();
+        for (int row = 0; row < 8; row++) {
+            int emptyFields = 0;
+            for (int column = 0; column < 8; column++) {
+                int pieceCode = board.pieceAt(row * 8 + column);
+                if (pieceCode == Constans.NO_PIECE) {
+                    emptyFields++;
+                    continue;
+                }
+                if (emptyFields > 0) {
+                    fen.append(emptyFields);
+                    emptyFields = 0;
+                }
+                char letter = FEN_LETTERS.charAt(BitBoard.pieceType(pieceCode));
+                fen.append(BitBoard.alliance(pieceCode) == Constans.HUMAN ? letter : Character.toLowerCase(letter));
+            }
+            if (emptyFields > 0) {
+                fen.append(emptyFields);
+            }
+            if (row < 7) {
+                fen.append('/');
+            }
+        }
+        fen.append(alliance == Constans.HUMAN ? " w" : " b").append(" - - 0 1");
+        return fen.toString();
+    }
+}
@@ -8,11 +8,6 @@ package com;
  */
 public class King {
 
-    /**
-     * The current position af the user's king.
-     */
-    protected static int userKingPosition;
-
     /**
      * The off-set coordinates  of a king's potential legal moves.
      */
@@ -44,14 +39,29 @@ public class King {
     };
 
     /**
-     * This function creates a list of possible king - moves that are valid according to the rules of the game and to the current state
-     * of the chessboard.
+     * This function adds the possible king - moves that are valid according to the rules of the game and to the current state
+     * of the chessboard to a list of moves.
+     * <p>
+     * A king move is legal if the destination is not attacked. The king itself is left out of the blocking pieces
+     * while checking this, so that the king cannot step back along the line of a piece that gives check.
      *
+     * @param board           The board that holds the position.
      * @param currentPosition The current position of the king. This position here is represented by a single int which
      *                        refers to the ID of the field (0-63) on the board.
-     * @return A single String value that holds all possible legal moves of the king.
+     * @param alliance        The alliance of the king, Constans.AI or Constans.HUMAN.
+     * @param moves           The list that the legal moves of the king are added to.
      */
-    public static String legalMoves(int currentPosition) {
-        return Move.legalMoves(currentPosition, legalMoveIndex);
+    public static void legalMoves(BitBoard board, int currentPosition, int alliance, MoveList moves) {
+        long occupiedWithoutKing = board.allPieces & ~(1L << currentPosition);
+        long destinations = Attacks.kingAttacks(currentPosition) & ~board.occupancy(alliance);
+        long safeDestinations = 0;
+        while (destinations != 0) {
+            int destination = Long.numberOfTrailingZeros(destinations);
+            destinations &= destinations - 1;
+            if (!Attacks.isSquareAttacked(board, destination, alliance ^ 1, occupiedWithoutKing)) {
+                safeDestinations |= 1L << destination;
+            }
+        }
+        Move.addMoves(board, currentPosition, safeDestinations, moves);
     }
 }
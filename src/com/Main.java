@@ -7,6 +7,7 @@ package com;
  */
 public class Main {
     public static void main(String[] args) {
+        PieceImages.loadInBackground();
         Table table = new Table();
     }
 }
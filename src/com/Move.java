@@ -2,231 +2,299 @@ package com;
 
 /**
  * This class provides functionality that maintains the calculation and validation of moves.
+ * <p>
+ * A move is represented by a single int value, so that creating, storing and comparing moves never needs a String:
+ * <p>
+ * Bits 0-5: The ID of the field (0-63) that the piece moves from.
+ * Bits 6-11: The ID of the field (0-63) that the piece moves to.
+ * Bits 12-14: The type of the moved piece (see the piece type constants in Constans).
+ * Bits 15-17: The type of the captured piece, or Constans.NO_PIECE if the move is not a capture.
+ * Bits 18-20: The type of the piece that a pawn is promoted to, or Constans.NO_PIECE if there is no pawn promotion.
+ * Bits 21-23: Flags, such as EN_PASSANT.
  *
  * @author Janos Nagy
  */
 public class Move {
     /**
-     * A String type variable that represents the user's move in the chess game.
-     * It consists of seven characters that can be letters, numbers or spaces.
-     * Character 0: A number that represents the ID of the array held in the first dimension of chessBoard[][]
-     * Character 1: A number that represents the ID of the element held in the second dimension of chessBoard[][]
-     * Character 0 and 1: Together they serve as coordinates that are pointing to the element in chessBoard[][] that
-     * represents the piece that the user moves.
-     * Character 2: A number that represents the ID of the array held in the first dimension of chessBoard[][]
-     * Character 3: A number that represents the ID of the element held in the second dimension of chessBoard[][]
-     * Character 2 and 3: Together they serve as coordinates that are pointing to the element in chessBoard[][] that
-     * represents the piece that is being captured and replaced by the moved piece.
-     * Character 4: A letter representing the captured piece, or a space if there is not capture to execute in this move.
-     * Character 5: A letter "Q" that represents the piece that the pawn is being promoted to, or a space if there is no pawn
-     * promotion to execute.
-     * Character 6: A letter "P" that indicates that this move includes the execution of pawn promotion, or a space
-     * if there is no pawn promotion to execute in this move.
+     * An int value that does not represent any move.
      */
-    private static String userMove = "";
+    public static final int NO_MOVE = 0;
 
     /**
-     * A String type variable that represents the coordinates of the destination of the last move made by the user.
-     * It consist of the following two characters:
-     * <p>
-     * Character 0: A number that represents the ID of the array held in the first dimension of chessBoard[][]
-     * Character 1: A number that represents the ID of the element held in the second dimension of chessBoard[][]
+     * An int value that does not represent any field on the board.
      */
-    private static String userLastDestination = "";
+    public static final int NO_SQUARE = -1;
+
+    /**
+     * A flag that indicates an en passant move. The captured pawn stands next to the origin of the move, in the
+     * column of the destination.
+     */
+    public static final int EN_PASSANT = 1;
+
+    /**
+     * The ID of the field that the user picked as the origin of their move with the first click, or NO_SQUARE.
+     */
+    private static int userMoveOrigin = NO_SQUARE;
+
+    /**
+     * The user's move in the chess game, or NO_MOVE if the user has not created a valid move yet.
+     */
+    private static int userMove = NO_MOVE;
+
+    /**
+     * The ID of the field that the last move made by the user moved to, or NO_SQUARE.
+     */
+    private static int userLastDestination = NO_SQUARE;
 
     /**
      * An accessor method that returns the user's last moves destinations coordinates.
      *
-     * @return A String variable that represents the coordinates of the destination of the last move made by the user.
+     * @return An int value that represents the ID of the field of the destination of the last move made by the user.
      */
-    public static String getUserLastDestination() {
+    public static int getUserLastDestination() {
         return userLastDestination;
     }
 
     /**
      * A mutator method that updates the value held in the userLastDestination variable.
      *
-     * @param userLastDestination A String type variable that holds the user's last destination's coordinades.
+     * @param userLastDestination An int value that holds the ID of the user's last destination's field, or NO_SQUARE.
      */
-    public static void setUserLastDestination(String userLastDestination) {
+    public static void setUserLastDestination(int userLastDestination) {
         Move.userLastDestination = userLastDestination;
     }
 
     /**
      * An accessor method that returns the userMove variable
      *
-     * @return A string type variable that represents the user's move.
+     * @return An int value that represents the user's move, or NO_MOVE.
      */
-    public static String getUserMove() {
+    public static int getUserMove() {
         return userMove;
     }
 
     /**
-     * This method appends the value held in the userMove variable with the value of the variable that it takes as a parameter.
+     * An accessor method that returns the origin of the user's move.
      *
-     * @param charToAdd AString type variable that holds the value that the userMove variable will be appended with.
+     * @return The ID of the field that the user picked with the first click, or NO_SQUARE.
      */
-    public static void appendUserMove(String charToAdd) {
-        userMove += charToAdd;
+    public static int getUserMoveOrigin() {
+        return userMoveOrigin;
     }
 
     /**
-     * This method empties the userMove variable.
+     * A mutator method that stores the origin of the user's move.
+     *
+     * @param origin The ID of the field that the user picked with the first click.
+     */
+    public static void setUserMoveOrigin(int origin) {
+        userMoveOrigin = origin;
+    }
+
+    /**
+     * This method empties the userMove and userMoveOrigin variables.
      */
     public static void clearUserMove() {
-        userMove = "";
+        userMoveOrigin = NO_SQUARE;
+        userMove = NO_MOVE;
     }
 
     /**
-     * Creates a pawn promotion move and stores it in the userMove variable
+     * Looks up the legal move that leads from the origin of the user's move to the given destination and stores it in
+     * the userMove variable. Pawn promotion and en passant moves are found the same way as regular moves.
      *
-     * @param originColumn      A String value that represents the column where the pawn moves from.
-     * @param destinationColumn A String value that represents the column where the pawn moves to.
-     * @param capturedPiece     A String value that represents the piece that is being captured within this move.
-     *                          A single letter if a capture is involved or a single space if a capture is not involved in this move.
-     * @param promotedTo        A String value "Q" that represents the piece that the pawn is promoted to.
+     * @param destination The ID of the field that the user picked with the second click.
      */
-    public static void createPawnPromotionMove(String originColumn, String destinationColumn, String capturedPiece, String promotedTo) {
-        userMove = originColumn + destinationColumn + capturedPiece + promotedTo + Constans.DOUBLE_SPACE;
+    public static void createUserMove(int destination) {
+        userMove = PositionSnapshot.of(Constans.HUMAN).move(userMoveOrigin, destination);
     }
 
-    public static String legalMoves(int currentPosition, int[][][] legalMoveIndex) {                          // try recursion + legalMoves calls validMoves(currentPosition)
+    /**
+     * Creates a move.
+     *
+     * @param origin        The ID of the field (0-63) that the piece moves from.
+     * @param destination   The ID of the field (0-63) that the piece moves to.
+     * @param pieceType     The type of the moved piece.
+     * @param capturedType  The type of the captured piece, or Constans.NO_PIECE.
+     * @param promotionType The type of the piece that a pawn is promoted to, or Constans.NO_PIECE.
+     * @param flags         EN_PASSANT or 0.
+     * @return An int value that represents the move.
+     */
+    public static int create(int origin, int destination, int pieceType, int capturedType, int promotionType, int flags) {
+        return origin | destination << 6 | pieceType << 12 | capturedType << 15 | promotionType << 18 | flags << 21;
+    }
 
-        String result = "";
+    /**
+     * @param move An int value that represents a move.
+     * @return The ID of the field that the piece moves from.
+     */
+    public static int origin(int move) {
+        return move & 63;
+    }
 
-        int originRow = currentPosition / 8;
-        int originColumn = currentPosition % 8;
+    /**
+     * @param move An int value that represents a move.
+     * @return The ID of the field that the piece moves to.
+     */
+    public static int destination(int move) {
+        return (move >>> 6) & 63;
+    }
 
+    /**
+     * @param move An int value that represents a move.
+     * @return The type of the moved piece.
+     */
+    public static int pieceType(int move) {
+        return (move >>> 12) & 7;
+    }
+
+    /**
+     * @param move An int value that represents a move.
+     * @return The type of the captured piece, or Constans.NO_PIECE if the move is not a capture.
+     */
+    public static int capturedType(int move) {
+        return (move >>> 15) & 7;
+    }
 
-        for (int direction = 0; direction < legalMoveIndex.length; direction++) {
-            for (int i = 0; i < legalMoveIndex[direction].length; i++) {
-                int destinationRow = originRow + legalMoveIndex[direction][i][0];
-                int destinationColumn = originColumn + legalMoveIndex[direction][i][1];
+    /**
+     * @param move An int value that represents a move.
+     * @return The type of the piece that the pawn is promoted to, or Constans.NO_PIECE if the move is not a pawn promotion.
+     */
+    public static int promotionType(int move) {
+        return (move >>> 18) & 7;
+    }
 
-                if (stillOnBoard(destinationRow, destinationColumn)) {
-                    if (enemyOrEmpty(destinationRow, destinationColumn)) {
-                        result = result + createMoveIfKingSafe(originRow, originColumn, destinationRow, destinationColumn);
-                    }
+    /**
+     * @param move An int value that represents a move.
+     * @return true if the move is an en passant move, false otherwise.
+     */
+    public static boolean isEnPassant(int move) {
+        return ((move >>> 21) & EN_PASSANT) != 0;
+    }
 
-                    if (!fieldEmpty(destinationRow, destinationColumn)) {
-                        i = legalMoveIndex[direction].length;
-                    }
-                }
-            }
-        }
+    /**
+     * Returns the field of the pawn that is captured by an en passant move.
+     *
+     * @param move An en passant move.
+     * @return The ID of the field that the captured pawn occupies.
+     */
+    public static int enPassantSquare(int move) {
+        return (origin(move) & 56) | (destination(move) & 7);
+    }
 
+    /**
+     * Creates a readable representation of a move for the console output, for example "e2e4" or "d7d8q". Row 7 of
+     * the board is rank 1, column 0 is file a.
+     *
+     * @param move An int value that represents the move.
+     * @return A String value that represents the move.
+     */
+    public static String toString(int move) {
+        String result = squareName(origin(move)) + squareName(destination(move));
+        if (promotionType(move) != Constans.NO_PIECE) {
+            result += Constans.PIECE_LETTERS[promotionType(move)].toLowerCase();
+        }
         return result;
     }
 
     /**
-     * The coordinates in a move may point to a destination that is not represented on the board.
-     * This method checks if the destination of a move is a valid destination in terms of locality.
+     * Finds the legal move of the given alliance that has the given readable representation, see toString().
      *
-     * @param destinationRow    An integer value that represents the horizontal coordinate of the given position.
-     * @param destinationColumn An integer value that represents the vertical coordinate of the given position.
-     * @return True if the coordinates are valid in terms of locality
-     * False if the coordinates are not valid in terms of locality.
+     * @param board    The board that holds the position.
+     * @param alliance The alliance that is about to move.
+     * @param text     A move such as "e2e4" or "d7d8q".
+     * @return An int value that represents the move, or NO_MOVE if there is no such legal move.
      */
-    public static boolean stillOnBoard(int destinationRow, int destinationColumn) {
-        if (
-                ((destinationRow >= 0) && (destinationRow < 8)) && ((destinationColumn >= 0) && (destinationColumn < 8))
-        ) {
-            return true;
+    public static int fromString(BitBoard board, int alliance, String text) {
+        MoveList legalMoves = new MoveList();
+        Board.allLegalMoves(board, alliance, legalMoves);
+        for (int i = 0; i < legalMoves.size(); i++) {
+            if (toString(legalMoves.get(i)).equals(text)) {
+                return legalMoves.get(i);
+            }
         }
-        return false;
+        return NO_MOVE;
     }
 
     /**
-     * This method checks if a given position on the board is occupied by a piece and if the piece that occupies the
-     * the given position belongs to the opponent team's alliance.
+     * Creates the name of a field, for example "e2".
      *
-     * @param destinationRow    An integer value that represents the horizontal coordinate of the given position.
-     * @param destinationColumn An integer value that represents the vertical coordinate of the given position.
-     * @return true if the given position is empty or is occupied by an enemy piece.
-     * false otherwise
+     * @param square The ID of the field (0-63).
+     * @return A String value that holds the file and the rank of the field.
      */
-    public static boolean enemyOrEmpty(int destinationRow, int destinationColumn) {
-        return fieldEmpty(destinationRow, destinationColumn) || enemyOnField(destinationRow, destinationColumn);
+    public static String squareName(int square) {
+        return "" + (char) ('a' + square % 8) + (8 - square / 8);
     }
 
     /**
-     * This method checks if a given position is not occupied by any pieces on the board.
+     * Adds a move from the given field to every field of a bitboard to a list of moves. The moves are not checked
+     * again: the caller has to make sure that every destination is legal (see Board.allLegalMoves()).
      *
-     * @param destinationRow    An integer value that represents the horizontal coordinate of the given position.
-     * @param destinationColumn An integer value that represents the vertical coordinate of the given position.
-     * @return true if the given position is empty
-     * false otherwise
+     * @param board        The board that holds the position.
+     * @param origin       The ID of the field (0-63) that the piece moves from.
+     * @param destinations A bitboard of the fields that the piece moves to.
+     * @param moves        The list that the moves are added to.
      */
-    public static boolean fieldEmpty(int destinationRow, int destinationColumn) {
-        if (Constans.EMPTY_FIELD.equals(Board.chessBoard[destinationRow][destinationColumn])) {
-            return true;
+    public static void addMoves(BitBoard board, int origin, long destinations, MoveList moves) {
+        int pieceType = BitBoard.pieceType(board.pieceAt(origin));
+        while (destinations != 0) {
+            int destination = Long.numberOfTrailingZeros(destinations);
+            destinations &= destinations - 1;
+            moves.add(create(origin, destination, pieceType, BitBoard.pieceType(board.pieceAt(destination)),
+                    Constans.NO_PIECE, 0));
         }
-        return false;
     }
 
     /**
-     * This method checks if a given position on the board is occupied by a piece that belongs to the opponent team's alliance.
+     * The coordinates in a move may point to a destination that is not represented on the board.
+     * This method checks if the destination of a move is a valid destination in terms of locality.
      *
      * @param destinationRow    An integer value that represents the horizontal coordinate of the given position.
      * @param destinationColumn An integer value that represents the vertical coordinate of the given position.
-     * @return true if the given position is occupied by a piece that belongs to the opponent team's alliance.
+     * @return True if the coordinates are valid in terms of locality
+     * False if the coordinates are not valid in terms of locality.
      */
-    public static boolean enemyOnField(int destinationRow, int destinationColumn) {
-        if (Character.isLowerCase(Board.chessBoard[destinationRow][destinationColumn].charAt(0))) {
+    public static boolean stillOnBoard(int destinationRow, int destinationColumn) {
+        if (
+                ((destinationRow >= 0) && (destinationRow < 8)) && ((destinationColumn >= 0) && (destinationColumn < 8))
+        ) {
             return true;
         }
         return false;
     }
 
     /**
-     * Creates a move if the move does not leave the user's king in check.
+     * Executes the given move, adds it to the list of moves if it does not leave the king of the moving alliance in
+     * check and undoes the move. The move generator only needs this for the rare moves that the pin and check
+     * masks cannot judge, such as en passant.
      *
-     * @param originRow         An integer value that represents the horizontal coordinate of the position that the piece moves from.
-     * @param originColumn      An integer value that represents the vertical coordinate of the given position that the piece moves from.
-     * @param destinationRow    An integer value that represents the horizontal coordinate of the given position that the piece moves to.
-     * @param destinationColumn An integer value that represents the vertical coordinate of the given position that the piece moves to.
-     * @return A String value that represents a move that not leave the user's king in check.
+     * @param board    The board that holds the position.
+     * @param move     An int value that represents the move.
+     * @param alliance The alliance of the moving piece, Constans.AI or Constans.HUMAN.
+     * @param moves    The list that the move is added to.
      */
-    public static String createMoveIfKingSafe(int originRow, int originColumn, int destinationRow, int destinationColumn) {
-        String capturedPiece;
-        String piece = Board.chessBoard[originRow][originColumn];
-        String move = "";
-
-        capturedPiece = Board.chessBoard[destinationRow][destinationColumn];
-        Board.chessBoard[originRow][originColumn] = Constans.EMPTY_FIELD;
-        Board.chessBoard[destinationRow][destinationColumn] = piece;
-
-        King.userKingPosition = whereIsMyKing(Constans.USER_KING);
-        if (Board.kingSafe()) {
-            move = originRow + "" + originColumn + "" + destinationRow + "" + destinationColumn + capturedPiece + Constans.DOUBLE_SPACE;
+    public static void addMoveIfKingSafe(BitBoard board, int move, int alliance, MoveList moves) {
+        board.makeMove(move);
+        if (!Attacks.isSquareAttacked(board, board.kingSquare(alliance), alliance ^ 1)) {
+            moves.add(move);
         }
-        Board.chessBoard[originRow][originColumn] = piece;
-        Board.chessBoard[destinationRow][destinationColumn] = capturedPiece;
-
-        return move;
+        board.unmakeMove(move);
     }
 
     /**
      * Finds the position of a given king.
      *
-     * @param myKing A string variable that represents the king piece that's location needs to be identified.
+     * @param alliance Constans.AI or Constans.HUMAN, the alliance of the king that's location needs to be identified.
      * @return An int value that represents the ID of the field that the given king occupies.
      */
-    public static int whereIsMyKing(String myKing) {
-        int kingIndex = 0;
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                if (myKing.equals(Board.chessBoard[i][j])) {
-                    kingIndex = i * 8 + j;
-                }
-            }
-        }
-        return kingIndex;
+    public static int whereIsMyKing(int alliance) {
+        return Board.position.kingSquare(alliance);
     }
 
 
     /**
-     * Checks if the given origin position matches any current legal moves's origin values.
+     * Checks if the given origin position matches any current legal moves's origin values. The answer comes from the
+     * snapshot of the current position (see PositionSnapshot), so the moves are not generated again.
      *
      * @param originRow    An integer value that represents the horizontal coordinate of the position that the piece moves from.
      * @param originColumn An integer value that represents the vertical coordinate of the position that the piece moves from.
@@ -234,20 +302,12 @@ public class Move {
      * false otherwise.
      */
     public static boolean canIMoveFromHere(int originRow, int originColumn) {
-        String allLegalMoves = Board.allLegalMoves();
-        for (int i = 0; i <= allLegalMoves.length() - 7; i += 7) {
-            String moveToCheck = allLegalMoves.substring(i, i + 7);
-            int moveToCheckOriginRow = Character.getNumericValue(moveToCheck.charAt(0));
-            int moveToCheckOriginColumn = Character.getNumericValue(moveToCheck.charAt(1));
-            if (moveToCheckOriginRow == originRow && moveToCheckOriginColumn == originColumn) {
-                return true;
-            }
-        }
-        return false;
+        return PositionSnapshot.of(Constans.HUMAN).canMoveFrom(originRow * 8 + originColumn);
     }
 
     /**
-     * Checks if the given destination position matches any current legal moves's destination values.
+     * Checks if the given destination position matches any current legal moves's destination values, see
+     * canIMoveFromHere().
      *
      * @param destinationRow    An integer value that represents the horizontal coordinate of the position that the piece moves to.
      * @param destinationColumn An integer value that represents the vertical coordinate of the position that the piece moves to.
@@ -255,15 +315,6 @@ public class Move {
      * false otherwise
      */
     public static boolean canIMoveHere(int destinationRow, int destinationColumn) {
-        String allLegalMoves = Board.allLegalMoves();
-        for (int i = 0; i <= allLegalMoves.length() - 7; i += 7) {
-            String moveToCheck = allLegalMoves.substring(i, i + 7);
-            int moveToCheckOriginRow = Character.getNumericValue(moveToCheck.charAt(2));
-            int moveToCheckOriginColumn = Character.getNumericValue(moveToCheck.charAt(3));
-            if (moveToCheckOriginRow == destinationRow && moveToCheckOriginColumn == destinationColumn) {
-                return true;
-            }
-        }
-        return false;
+        return PositionSnapshot.of(Constans.HUMAN).canMoveTo(destinationRow * 8 + destinationColumn);
     }
 }
@@ -0,0 +1,155 @@
+package com;
+
+/**
+ * This class holds a list of moves in a plain int array (see Move for the representation of a move), so that
+ * collecting and iterating moves never creates any objects.
+ *
+ * @author Janos Nagy
+ */
+public class MoveList {
+    /**
+     * The maximum number of legal moves in any chess position is 218.
+     */
+    public static final int MAX_MOVES = 256;
+
+    /**
+     * The moves held in the list. Only the first size elements are valid.
+     */
+    private final int[] moves = new int[MAX_MOVES];
+
+    /**
+     * The ordering scores of the moves, see setScore() and pickNext(). Only the first size elements are valid.
+     */
+    private final int[] scores = new int[MAX_MOVES];
+
+    /**
+     * The number of moves held in the list.
+     */
+    private int size;
+
+    /**
+     * Adds a move to the end of the list.
+     *
+     * @param move An int value that represents the move.
+     */
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    /**
+     * Returns the move at the given index.
+     *
+     * @param index An int value between 0 and size() - 1.
+     * @return An int value that represents the move.
+     */
+    public int get(int index) {
+        return moves[index];
+    }
+
+    /**
+     * @return The number of moves held in the list.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Empties the list.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Checks if the list holds the given move.
+     *
+     * @param move An int value that represents the move.
+     * @return true if the move is on the list, false otherwise.
+     */
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves the given move to the beginning of the list, so that it is the first one to be tried, for example by the
+     * search. The order of the other moves does not change.
+     *
+     * @param move An int value that represents the move.
+     * @return true if the move was found on the list, false otherwise.
+     */
+    public boolean moveToFront(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = move;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sets the ordering score of the move at the given index. Moves with a higher score are returned first by
+     * pickNext().
+     *
+     * @param index An int value between 0 and size() - 1.
+     * @param score The ordering score of the move.
+     */
+    public void setScore(int index, int score) {
+        scores[index] = score;
+    }
+
+    /**
+     * @param index An int value between 0 and size() - 1.
+     * @return The ordering score of the move at the given index.
+     */
+    public int getScore(int index) {
+        return scores[index];
+    }
+
+    /**
+     * Finds the move with the highest score among the moves from the given index to the end of the list and swaps it
+     * to the given index. Calling this function with index 0, 1, 2, ... returns the moves in the order of their
+     * scores, but the list is only sorted as far as the search actually gets, which is often just the first move.
+     *
+     * @param index An int value between 0 and size() - 1.
+     * @return The move that is now at the given index.
+     */
+    public int pickNext(int index) {
+        int best = index;
+        for (int i = index + 1; i < size; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = moves[best];
+        moves[best] = moves[index];
+        moves[index] = move;
+        int score = scores[best];
+        scores[best] = scores[index];
+        scores[index] = score;
+        return move;
+    }
+
+    /**
+     * Creates a readable representation of the list for the console output.
+     *
+     * @return The moves separated by spaces, for example "e2e3 e2e4".
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                result.append(' ');
+            }
+            result.append(Move.toString(moves[i]));
+        }
+        return result.toString();
+    }
+}
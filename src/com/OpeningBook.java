@@ -0,0 +1,230 @@
+package com;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * This class looks up moves in an opening book: a file of moves that strong players often played in the positions
+ * of the opening. Playing a book move takes microseconds instead of a full search.
+ * <p>
+ * The file starts with the 8 bytes of MAGIC, followed by entries of 16 bytes: the hash key of the position with the
+ * side to move (8 bytes, see key()), the move (4 bytes, see Move) and its weight (4 bytes). The entries are sorted by
+ * key, so the moves of a position are found by binary search. The file is memory-mapped, so it is not read into the
+ * heap and the operating system shares it between all programs that use it. Books are created by BookBuilder.
+ *
+ * @author Janos Nagy
+ */
+public class OpeningBook {
+    /**
+     * The first bytes of every book file.
+     */
+    private static final byte[] MAGIC = "AICBOOK1".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The size of one entry in bytes.
+     */
+    private static final int ENTRY_SIZE = 16;
+
+    /**
+     * The entries of the book, after the magic bytes.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * The number of entries in the book.
+     */
+    private final int entryCount;
+
+    /**
+     * Chooses between the moves of a position, see probe().
+     */
+    private final Random random = new Random();
+
+    /**
+     * Opens a book file.
+     *
+     * @param file The book file.
+     * @throws IOException if the file cannot be read or is not a book file.
+     */
+    public OpeningBook(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < MAGIC.length || (size - MAGIC.length) % ENTRY_SIZE != 0) {
+                throw new IOException("Not an opening book: " + file);
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("The opening book is larger than 2 GB: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        byte[] magic = new byte[MAGIC.length];
+        for (int i = 0; i < magic.length; i++) {
+            magic[i] = buffer.get(i);
+        }
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not an opening book: " + file);
+        }
+        entryCount = (buffer.capacity() - MAGIC.length) / ENTRY_SIZE;
+    }
+
+    /**
+     * Opens the book file with the given name, if there is one.
+     *
+     * @param fileName The name of the book file, or an empty String for no book.
+     * @return The book, or null if the file does not exist or cannot be read.
+     */
+    public static OpeningBook load(String fileName) {
+        if (fileName == null || fileName.isEmpty() || !new File(fileName).isFile()) {
+            return null;
+        }
+        try {
+            return new OpeningBook(new File(fileName));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Calculates the key that the moves of a position are stored under.
+     *
+     * @param board    The board that holds the position.
+     * @param alliance The alliance that is about to move.
+     * @return The hash key of the position with the side to move.
+     */
+    public static long key(BitBoard board, int alliance) {
+        return board.getKey() ^ Zobrist.sideKey(alliance);
+    }
+
+    /**
+     * @return The number of entries in the book.
+     */
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * Chooses a book move for the given position. Moves with a higher weight are chosen more often, so the AI does
+     * not play the same opening in every game.
+     *
+     * @param board    The board that holds the position.
+     * @param alliance The alliance that is about to move.
+     * @return A legal move, or Move.NO_MOVE if the position is not in the book.
+     */
+    public int probe(BitBoard board, int alliance) {
+        long key = key(board, alliance);
+        MoveList legalMoves = new MoveList();
+        Board.allLegalMoves(board, alliance, legalMoves);
+
+        long totalWeight = 0;
+        for (int i = firstIndex(key); i < entryCount && keyAt(i) == key; i++) {
+            if (legalMoves.contains(moveAt(i))) {
+                totalWeight += weightAt(i);
+            }
+        }
+        if (totalWeight == 0) {
+            return Move.NO_MOVE;
+        }
+
+        long choice = (long) (random.nextDouble() * totalWeight);
+        for (int i = firstIndex(key); i < entryCount && keyAt(i) == key; i++) {
+            if (legalMoves.contains(moveAt(i))) {
+                choice -= weightAt(i);
+                if (choice < 0) {
+                    return moveAt(i);
+                }
+            }
+        }
+        return Move.NO_MOVE;
+    }
+
+    /**
+     * Returns all book moves of a position with their weights, for example to print them.
+     *
+     * @param board    The board that holds the position.
+     * @param alliance The alliance that is about to move.
+     * @return A list of {move, weight} pairs, ordered by decreasing weight.
+     */
+    public List<int[]> moves(BitBoard board, int alliance) {
+        long key = key(board, alliance);
+        List<int[]> moves = new ArrayList<>();
+        for (int i = firstIndex(key); i < entryCount && keyAt(i) == key; i++) {
+            moves.add(new int[]{moveAt(i), weightAt(i)});
+        }
+        return moves;
+    }
+
+    /**
+     * Finds the first entry whose key is not smaller than the given key, by binary search.
+     *
+     * @param key The hash key of a position.
+     * @return The index of the entry, or entryCount if all keys are smaller.
+     */
+    private int firstIndex(long key) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keyAt(middle) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return buffer.getLong(MAGIC.length + index * ENTRY_SIZE);
+    }
+
+    private int moveAt(int index) {
+        return buffer.getInt(MAGIC.length + index * ENTRY_SIZE + 8);
+    }
+
+    private int weightAt(int index) {
+        return buffer.getInt(MAGIC.length + index * ENTRY_SIZE + 12);
+    }
+
+    /**
+     * Writes a book file.
+     *
+     * @param file    The book file. It is overwritten if it exists.
+     * @param entries The weights of the moves, indexed by the key of the position (see key()) and by the move.
+     *                Moves with a weight of 0 or less are left out.
+     * @return The number of entries written.
+     * @throws IOException if the file cannot be written.
+     */
+    public static int write(File file, Map<Long, Map<Integer, Integer>> entries) throws IOException {
+        int entryCount = 0;
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            output.write(MAGIC);
+            for (Map.Entry<Long, Map<Integer, Integer>> position : new TreeMap<>(entries).entrySet()) {
+                List<Map.Entry<Integer, Integer>> moves = new ArrayList<>(position.getValue().entrySet());
+                moves.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+                for (Map.Entry<Integer, Integer> move : moves) {
+                    if (move.getValue() > 0) {
+                        output.writeLong(position.getKey());
+                        output.writeInt(move.getKey());
+                        output.writeInt(move.getValue());
+                        entryCount++;
+                    }
+                }
+            }
+        }
+        return entryCount;
+    }
+}
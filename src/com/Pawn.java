@@ -3,195 +3,174 @@ package com;
 /**
  * This class provides the functionality of calculating legal moves of a pawn.
  * This class is also responsible for providing a list of potential moves of the pawn that are already validated.
+ * <p>
+ * The user's pawns move towards row 0, the AI's pawns move towards row 7.
  *
  * @author Janos Nagy
  */
 public class Pawn {
 
     /**
-     * This method creates regular moves (one step ahead) and jump moves(two steps ahead)
+     * Returns the direction that the pawns of an alliance move in.
      *
-     * @param currentPosition The current position of the pawn. This position here is represented by a single int which
-     *                        refers to the ID of the field (0-63) on the board.
-     * @return a String value that may contain more than one moves. The move(s) can be either regular move or
-     * regular and jump move.
+     * @param alliance Constans.AI or Constans.HUMAN.
+     * @return -1 for the user's pawns (towards row 0), 1 for the AI's pawns (towards row 7).
      */
-    public static String pawnJumpOrMoveException(int currentPosition) {
-        String result = "";
-
-        int row = currentPosition / 8;
-        int column = currentPosition % 8;
-
-        if (row != 1) {
-            if (Move.stillOnBoard(row - 1, column) && Move.fieldEmpty(row - 1, column)) {
-                result = result + Move.createMoveIfKingSafe(row, column, row - 1, column);
-            }
-
-            if (row == 6) {
-                if (Move.stillOnBoard(row - 2, column) && Move.fieldEmpty(row - 1, column) && Move.fieldEmpty(row - 2, column)) {
-                    result = result + Move.createMoveIfKingSafe(row, column, row - 2, column);
-                }
-            }
-        }
-
-        return result;
+    public static int direction(int alliance) {
+        return alliance == Constans.HUMAN ? -1 : 1;
     }
 
     /**
-     * This method calculates potential capture moves of a pawn.
+     * Returns the row that the pawns of an alliance start the game on. A pawn on this row can jump two steps ahead.
      *
-     * @param currentPosition The current position of the pawn. This position here is represented by a single int which
-     *                        refers to the ID of the field (0-63) on the board.
-     * @return A string value that may hold more than one potential capture moves of a pawn.
+     * @param alliance Constans.AI or Constans.HUMAN.
+     * @return 6 for the user's pawns, 1 for the AI's pawns.
      */
-    public static String pawnCaptureException(int currentPosition) {
-        String result = "";
-        String capturedPiece = Constans.EMPTY_FIELD;
+    public static int startRow(int alliance) {
+        return alliance == Constans.HUMAN ? 6 : 1;
+    }
 
-        int row = currentPosition / 8;
-        int column = currentPosition % 8;
-        if (row != 1) {
-            if (Move.stillOnBoard(row - 1, column - 1) && Move.enemyOnField(row - 1, column - 1)) {
-                result = result + Move.createMoveIfKingSafe(row, column, row - 1, column - 1);
-            }
-            if (Move.stillOnBoard(row - 1, column + 1) && Move.enemyOnField(row - 1, column + 1)) {
-                result = result + Move.createMoveIfKingSafe(row, column, row - 1, column + 1);
-            }
-        }
-        return result;
+    /**
+     * Returns the row that a pawn of an alliance is promoted from with its next step.
+     *
+     * @param alliance Constans.AI or Constans.HUMAN.
+     * @return 1 for the user's pawns, 6 for the AI's pawns.
+     */
+    public static int promotionRow(int alliance) {
+        return alliance == Constans.HUMAN ? 1 : 6;
     }
 
     /**
-     * This methods calculates all potential en passant moves of a pawn.
+     * Returns the row that a pawn of an alliance can capture en passant from.
      *
-     * @param currentPosition The current position of the pawn. This position here is represented by a single int which
-     *                        refers to the ID of the field (0-63) on the board.
-     * @return A string value that may hold more than one potential capture moves of a pawn.
+     * @param alliance Constans.AI or Constans.HUMAN.
+     * @return 3 for the user's pawns, 4 for the AI's pawns.
      */
-    public static String pawnEnPassantException(int currentPosition) {
-        String result = "";
-        String capturedPiece = Constans.EMPTY_FIELD;
+    public static int enPassantRow(int alliance) {
+        return alliance == Constans.HUMAN ? 3 : 4;
+    }
 
+    /**
+     * This method creates regular moves (one step ahead) and jump moves(two steps ahead)
+     *
+     * @param board               The board that holds the position.
+     * @param currentPosition     The current position of the pawn. This position here is represented by a single int which
+     *                            refers to the ID of the field (0-63) on the board.
+     * @param alliance            The alliance of the pawn, Constans.AI or Constans.HUMAN.
+     * @param allowedDestinations A bitboard of the fields that the pawn may move to without leaving its king in check.
+     * @param moves               The list that the regular move or the regular and jump move are added to.
+     */
+    public static void pawnJumpOrMoveException(BitBoard board, int currentPosition, int alliance,
+                                               long allowedDestinations, MoveList moves) {
         int row = currentPosition / 8;
-        int column = currentPosition % 8;
-
-        if (row == 3) {
-            if (Move.stillOnBoard(row - 1, column - 1) &&
-                    Move.enemyOnField(row, column - 1) &&
-                    Move.fieldEmpty(row - 1, column - 1)
-            ) {
-                capturedPiece = Board.chessBoard[row][column - 1];
+        int oneStep = currentPosition + direction(alliance) * 8;
 
-                if (Constans.AI_PAWN.equals(capturedPiece)) {
-                    if (Board.kingSafe()) {
-                        result = result + "" + row + "" + column + "" + (row - 1) + "" + (column - 1) + "" + capturedPiece + "" + row + "" + (column - 1);
-                    }
-                }
-            }
-
-            if (Move.stillOnBoard(row - 1, column + 1) &&
-                    Move.enemyOnField(row, column + 1) &&
-                    Move.fieldEmpty(row - 1, column + 1)) {
-                capturedPiece = Board.chessBoard[row][column + 1];
+        if (row != promotionRow(alliance) && board.isEmpty(oneStep)) {
+            Move.addMoves(board, currentPosition, (1L << oneStep) & allowedDestinations, moves);
 
-                if (Constans.AI_PAWN.equals(capturedPiece)) {
-                    if (Board.kingSafe()) {
-                        result = result + "" + row + "" + column + "" + (row - 1) + "" + (column + 1) + "" + capturedPiece + "" + row + "" + (column + 1);
-                    }
-                }
+            int twoSteps = oneStep + direction(alliance) * 8;
+            if (row == startRow(alliance) && board.isEmpty(twoSteps)) {
+                Move.addMoves(board, currentPosition, (1L << twoSteps) & allowedDestinations, moves);
             }
         }
-
-        return result;
     }
 
     /**
-     * This function determines if the given origin and destination coordinates are referring to an en passant move or not.
+     * This method calculates potential capture moves of a pawn.
      *
-     * @param originRow         the x coordinate of the origin position.
-     * @param originColumn      the y coordinate of the origin position.
-     * @param destinationRow    the x coordinate of the destination position.
-     * @param destinationColumn the y coordinate of the destination position.
-     * @return true if the if the given origin and destination coordinates are referring to an en passant move.
-     * false otherwise
+     * @param board               The board that holds the position.
+     * @param currentPosition     The current position of the pawn. This position here is represented by a single int which
+     *                            refers to the ID of the field (0-63) on the board.
+     * @param alliance            The alliance of the pawn, Constans.AI or Constans.HUMAN.
+     * @param allowedDestinations A bitboard of the fields that the pawn may move to without leaving its king in check.
+     * @param moves               The list that the potential capture moves of the pawn are added to.
      */
-    public static boolean isEnPassantMove(int originRow, int originColumn, int destinationRow, int destinationColumn) {
-        if (Constans.USER_PAWN.equals(Board.chessBoard[originRow][originColumn]) &&
-                Constans.AI_PAWN.equals(Board.chessBoard[originRow][destinationColumn]) &&
-                Constans.EMPTY_FIELD.equals(Board.chessBoard[destinationRow][destinationColumn]) &&
-                destinationRow == 2) {
-            return true;
+    public static void pawnCaptureException(BitBoard board, int currentPosition, int alliance,
+                                            long allowedDestinations, MoveList moves) {
+        if (currentPosition / 8 != promotionRow(alliance)) {
+            long captures = Attacks.pawnAttacks(alliance, currentPosition) & board.occupancy(alliance ^ 1);
+            Move.addMoves(board, currentPosition, captures & allowedDestinations, moves);
         }
-        return false;
     }
 
     /**
-     * Ths function calculates and returns all potential pawn promotion moves of a pawn from a given position.
+     * This methods calculates all potential en passant moves of a pawn.
+     * <p>
+     * An en passant move removes two pawns from the same row, which the pin and check masks cannot judge, so these
+     * moves are executed and tested one by one.
      *
+     * @param board           The board that holds the position.
      * @param currentPosition The current position of the pawn. This position here is represented by a single int which
      *                        refers to the ID of the field (0-63) on the board.
-     * @return a String value that holds all possible pawn promotion moves of a pawn.
+     * @param alliance        The alliance of the pawn, Constans.AI or Constans.HUMAN.
+     * @param moves           The list that the potential en passant moves of the pawn are added to.
      */
-    public static String pawnPromotionException(int currentPosition) {
-        String result = "";
-
+    public static void pawnEnPassantException(BitBoard board, int currentPosition, int alliance, MoveList moves) {
         int row = currentPosition / 8;
         int column = currentPosition % 8;
-
-        if (row == 1) {
-            if (Move.stillOnBoard(row - 1, column) && Move.fieldEmpty(row - 1, column)) {
-                result = createMoveIfKingSafe(row, column, row - 1, column);
-            }
-            if (Move.stillOnBoard(row - 1, column - 1) && Move.enemyOnField(row - 1, column - 1)) {
-                result = createMoveIfKingSafe(row, column, row - 1, column - 1);
+        int direction = direction(alliance);
+        int enemyPawn = BitBoard.pieceCode(alliance ^ 1, Constans.PAWN);
+
+        if (row == enPassantRow(alliance)) {
+            if (column > 0 && board.pieceAt(currentPosition - 1) == enemyPawn &&
+                    board.isEmpty(currentPosition + direction * 8 - 1)) {
+                Move.addMoveIfKingSafe(board, Move.create(currentPosition, currentPosition + direction * 8 - 1,
+                        Constans.PAWN, Constans.PAWN, Constans.NO_PIECE, Move.EN_PASSANT), alliance, moves);
             }
-            if (Move.stillOnBoard(row - 1, column + 1) && Move.enemyOnField(row - 1, column + 1)) {
-                result = createMoveIfKingSafe(row, column, row - 1, column + 1);
+
+            if (column < 7 && board.pieceAt(currentPosition + 1) == enemyPawn &&
+                    board.isEmpty(currentPosition + direction * 8 + 1)) {
+                Move.addMoveIfKingSafe(board, Move.create(currentPosition, currentPosition + direction * 8 + 1,
+                        Constans.PAWN, Constans.PAWN, Constans.NO_PIECE, Move.EN_PASSANT), alliance, moves);
             }
         }
-
-        return result;
     }
 
     /**
-     * This function checks if the given origin and destination coordinates are referring to a move that does
-     * not leave the user's king in check.
+     * Ths function calculates all potential pawn promotion moves of a pawn from a given position.
      *
-     * @param originRow         the x coordinate of the origin position.
-     * @param originColumn      the y coordinate of the origin position.
-     * @param destinationRow    the x coordinate of the destination position.
-     * @param destinationColumn the y coordinate of the destination position.
-     * @return A String value that holds a move that does not leave the user's king in check.
-     * An empty String ("") if the given coordinates are referring to a move that does leave the
-     * user's king in check
+     * @param board               The board that holds the position.
+     * @param currentPosition     The current position of the pawn. This position here is represented by a single int which
+     *                            refers to the ID of the field (0-63) on the board.
+     * @param alliance            The alliance of the pawn, Constans.AI or Constans.HUMAN.
+     * @param allowedDestinations A bitboard of the fields that the pawn may move to without leaving its king in check.
+     * @param moves               The list that the potential pawn promotion moves of the pawn are added to.
      */
-    public static String createMoveIfKingSafe(int originRow, int originColumn, int destinationRow, int destinationColumn) {
-        String move = "";
-        String capturedPiece = Board.chessBoard[destinationRow][destinationColumn];
+    public static void pawnPromotionException(BitBoard board, int currentPosition, int alliance,
+                                              long allowedDestinations, MoveList moves) {
+        if (currentPosition / 8 == promotionRow(alliance)) {
+            int oneStep = currentPosition + direction(alliance) * 8;
+            long destinations = Attacks.pawnAttacks(alliance, currentPosition) & board.occupancy(alliance ^ 1);
+            if (board.isEmpty(oneStep)) {
+                destinations |= 1L << oneStep;
+            }
+            destinations &= allowedDestinations;
 
-        Board.chessBoard[originRow][originColumn] = Constans.EMPTY_FIELD;
-        Board.chessBoard[destinationRow][destinationColumn] = Constans.USER_PAWN;
-        if (Board.kingSafe()) {
-            move = originColumn + "" + destinationColumn + "" + capturedPiece + "" + Constans.USER_QUEEN + "P" + Constans.DOUBLE_SPACE;
+            while (destinations != 0) {
+                int destination = Long.numberOfTrailingZeros(destinations);
+                destinations &= destinations - 1;
+                moves.add(Move.create(currentPosition, destination, Constans.PAWN,
+                        BitBoard.pieceType(board.pieceAt(destination)), Constans.QUEEN, 0));
+            }
         }
-        Board.chessBoard[originRow][originColumn] = Constans.USER_PAWN;
-        Board.chessBoard[destinationRow][destinationColumn] = capturedPiece;
-
-        return move;
     }
 
     /**
-     * This function collects and returns all potential legal and valid moves of a pawn from a given position.
+     * This function collects all potential legal and valid moves of a pawn from a given position.
      *
-     * @param currentPosition The current position of the pawn. This position here is represented by a single int which
-     *                        refers to the ID of the field (0-63) on the board.
-     * @return A String value that holds all potential legal and valid moves of a pawn from a given position.
+     * @param board               The board that holds the position.
+     * @param currentPosition     The current position of the pawn. This position here is represented by a single int which
+     *                            refers to the ID of the field (0-63) on the board.
+     * @param alliance            The alliance of the pawn, Constans.AI or Constans.HUMAN.
+     * @param allowedDestinations A bitboard of the fields that the pawn may move to without leaving its king in check,
+     *                            see Board.allLegalMoves().
+     * @param moves               The list that all potential legal and valid moves of the pawn are added to.
      */
-    public static String legalMoves(int currentPosition) {
-        String collectedLegalMoves = pawnJumpOrMoveException(currentPosition);
-        collectedLegalMoves = collectedLegalMoves + pawnCaptureException(currentPosition);
-        collectedLegalMoves = collectedLegalMoves + pawnEnPassantException(currentPosition);
-        collectedLegalMoves = collectedLegalMoves + pawnPromotionException(currentPosition);
-        return collectedLegalMoves;
+    public static void legalMoves(BitBoard board, int currentPosition, int alliance, long allowedDestinations,
+                                  MoveList moves) {
+        pawnJumpOrMoveException(board, currentPosition, alliance, allowedDestinations, moves);
+        pawnCaptureException(board, currentPosition, alliance, allowedDestinations, moves);
+        pawnEnPassantException(board, currentPosition, alliance, moves);
+        pawnPromotionException(board, currentPosition, alliance, allowedDestinations, moves);
     }
-}
\ No newline at end of file
+}
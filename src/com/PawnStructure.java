@@ -0,0 +1,188 @@
+package com;
+
+/**
+ * This class evaluates the pawn structure of a position: passed, isolated, doubled and backward pawns, and the pawns
+ * that shield a king.
+ * <p>
+ * The terms of evaluate() only depend on the placement of the pawns, so they are cached by the pawn hash key of the
+ * position (see PawnTable) and calculated again only when a pawn has moved. The king shield also depends on the
+ * king, so kingShield() is calculated for every position; it only looks at a few fields.
+ * <p>
+ * All values are in the same unit as Constans.PIECE_VALUES (a pawn is worth 100).
+ *
+ * @author Janos Nagy
+ */
+public class PawnStructure {
+    /**
+     * The bonus of a passed pawn, indexed by its relative rank (see relativeRank()). A passed pawn has no enemy pawn
+     * in front of it on its own file or on the neighbouring files, so no pawn can stop it.
+     */
+    static final int[] PASSED_PAWN_BONUS = {0, 5, 10, 20, 35, 60, 100, 0};
+
+    /**
+     * The penalty of a pawn without friendly pawns on the neighbouring files, which no pawn can protect.
+     */
+    static final int ISOLATED_PAWN_PENALTY = 15;
+
+    /**
+     * The penalty of every additional pawn on a file.
+     */
+    static final int DOUBLED_PAWN_PENALTY = 10;
+
+    /**
+     * The penalty of a pawn that has fallen behind the pawns on the neighbouring files and cannot step forward,
+     * because the field in front of it is attacked by an enemy pawn.
+     */
+    static final int BACKWARD_PAWN_PENALTY = 8;
+
+    /**
+     * The bonus of every pawn right in front of a king on its home ranks (one row ahead) and two rows ahead.
+     */
+    static final int NEAR_SHIELD_BONUS = 10;
+    static final int FAR_SHIELD_BONUS = 5;
+
+    /**
+     * The fields of every file, and the fields of the neighbouring files of every file.
+     */
+    private static final long[] FILES = new long[8];
+    private static final long[] NEIGHBOUR_FILES = new long[8];
+
+    /**
+     * Indexed by alliance and field: the fields in front of the field on its own file and the neighbouring files.
+     * An enemy pawn on one of them stops a passed pawn.
+     */
+    private static final long[][] PASSED_PAWN_MASKS = new long[2][64];
+
+    /**
+     * Indexed by alliance and field: the fields in front of the field on its own file.
+     */
+    private static final long[][] FRONT_SPANS = new long[2][64];
+
+    /**
+     * Indexed by alliance and field: the fields on the neighbouring files on the same row and behind the field.
+     * Friendly pawns there can still advance to protect a pawn on the field.
+     */
+    private static final long[][] SUPPORT_MASKS = new long[2][64];
+
+    /**
+     * Indexed by alliance and the field of the king: the fields on the king's file and the neighbouring files one row
+     * and two rows in front of the king.
+     */
+    private static final long[][] NEAR_SHIELDS = new long[2][64];
+    private static final long[][] FAR_SHIELDS = new long[2][64];
+
+    static {
+        for (int column = 0; column < 8; column++) {
+            for (int row = 0; row < 8; row++) {
+                FILES[column] |= 1L << (row * 8 + column);
+            }
+        }
+        for (int column = 0; column < 8; column++) {
+            NEIGHBOUR_FILES[column] = (column > 0 ? FILES[column - 1] : 0) | (column < 7 ? FILES[column + 1] : 0);
+        }
+        for (int alliance = 0; alliance < 2; alliance++) {
+            int direction = Pawn.direction(alliance);
+            for (int square = 0; square < 64; square++) {
+                int row = square / 8;
+                int column = square % 8;
+                long threeFiles = FILES[column] | NEIGHBOUR_FILES[column];
+                for (int otherRow = 0; otherRow < 8; otherRow++) {
+                    long rowMask = 0xFFL << (otherRow * 8);
+                    int distance = (otherRow - row) * direction;
+                    if (distance > 0) {
+                        PASSED_PAWN_MASKS[alliance][square] |= rowMask & threeFiles;
+                        FRONT_SPANS[alliance][square] |= rowMask & FILES[column];
+                    } else {
+                        SUPPORT_MASKS[alliance][square] |= rowMask & NEIGHBOUR_FILES[column];
+                    }
+                    if (distance == 1) {
+                        NEAR_SHIELDS[alliance][square] = rowMask & threeFiles;
+                    } else if (distance == 2) {
+                        FAR_SHIELDS[alliance][square] = rowMask & threeFiles;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Evaluates the pawns of both alliances.
+     *
+     * @param board The board that holds the position.
+     * @return The value of the pawn structure from the perspective of the user: positive if the user's pawns are
+     * better.
+     */
+    public static int evaluate(BitBoard board) {
+        return evaluate(board, Constans.HUMAN) - evaluate(board, Constans.AI);
+    }
+
+    /**
+     * Evaluates the pawns of one alliance.
+     *
+     * @param board    The board that holds the position.
+     * @param alliance Constans.AI or Constans.HUMAN.
+     * @return The sum of the bonuses and penalties of the alliance's pawns.
+     */
+    static int evaluate(BitBoard board, int alliance) {
+        long ownPawns = board.pieces(alliance, Constans.PAWN);
+        long enemyPawns = board.pieces(alliance ^ 1, Constans.PAWN);
+        int score = 0;
+
+        for (int column = 0; column < 8; column++) {
+            int pawnsOnFile = Long.bitCount(ownPawns & FILES[column]);
+            if (pawnsOnFile > 1) {
+                score -= DOUBLED_PAWN_PENALTY * (pawnsOnFile - 1);
+            }
+        }
+
+        long pawns = ownPawns;
+        while (pawns != 0) {
+            int square = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+
+            if ((PASSED_PAWN_MASKS[alliance][square] & enemyPawns) == 0
+                    && (FRONT_SPANS[alliance][square] & ownPawns) == 0) {
+                score += PASSED_PAWN_BONUS[relativeRank(alliance, square)];
+            }
+            if ((NEIGHBOUR_FILES[square % 8] & ownPawns) == 0) {
+                score -= ISOLATED_PAWN_PENALTY;
+            } else if ((SUPPORT_MASKS[alliance][square] & ownPawns) == 0) {
+                int stopSquare = square + Pawn.direction(alliance) * 8;
+                if ((Attacks.pawnAttacks(alliance, stopSquare) & enemyPawns) != 0) {
+                    score -= BACKWARD_PAWN_PENALTY;
+                }
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Evaluates the pawns in front of the king of an alliance. The shield only counts while the king is on one of
+     * its two home ranks and the enemy still has a queen; in the endgame the king belongs in the centre.
+     *
+     * @param board    The board that holds the position.
+     * @param alliance Constans.AI or Constans.HUMAN.
+     * @return The bonus of the shield, 0 or more.
+     */
+    public static int kingShield(BitBoard board, int alliance) {
+        int kingSquare = board.kingSquare(alliance);
+        if (relativeRank(alliance, kingSquare) > 1 || board.pieces(alliance ^ 1, Constans.QUEEN) == 0) {
+            return 0;
+        }
+        long ownPawns = board.pieces(alliance, Constans.PAWN);
+        return NEAR_SHIELD_BONUS * Long.bitCount(ownPawns & NEAR_SHIELDS[alliance][kingSquare])
+                + FAR_SHIELD_BONUS * Long.bitCount(ownPawns & FAR_SHIELDS[alliance][kingSquare]);
+    }
+
+    /**
+     * Returns the rank of a field from the point of view of an alliance: 0 for its home row, 7 for the row its pawns
+     * are promoted on.
+     *
+     * @param alliance Constans.AI or Constans.HUMAN.
+     * @param square   The ID of the field (0-63).
+     * @return The relative rank, 0-7.
+     */
+    static int relativeRank(int alliance, int square) {
+        return alliance == Constans.HUMAN ? 7 - square / 8 : square / 8;
+    }
+}
@@ -0,0 +1,100 @@
+package com;
+
+/**
+ * This class provides a small hash table that caches the evaluation of the pawn structure (see PawnStructure) by the
+ * pawn hash key of the position (see BitBoard.getPawnKey()).
+ * <p>
+ * The pawns change far less often than the other pieces: most moves of the search, and all captures of pieces other
+ * than pawns, keep the pawn structure of their position. Nearly every evaluation is therefore answered from the
+ * table, and the pawn structure is calculated again only for the few structures that are new.
+ * <p>
+ * Every searcher owns its own table (see Searcher), so the table needs no synchronisation.
+ *
+ * @author Janos Nagy
+ */
+public class PawnTable {
+    /**
+     * The default number of entries. Each entry takes 12 bytes.
+     */
+    public static final int DEFAULT_ENTRIES = 1 << 16;
+
+    /**
+     * The pawn hash keys of the cached structures.
+     */
+    private final long[] keys;
+
+    /**
+     * The values of the structures with the same index, see PawnStructure.evaluate().
+     */
+    private final int[] scores;
+
+    /**
+     * The number of entries minus one. The number of entries is always a power of two.
+     */
+    private final int indexMask;
+
+    /**
+     * Counters that show how well the table works.
+     */
+    private long probes;
+    private long hits;
+
+    /**
+     * Constructs a pawn hash table.
+     *
+     * @param entries The number of entries. It is rounded down to a power of two.
+     */
+    public PawnTable(int entries) {
+        int size = Integer.highestOneBit(Math.max(1, entries));
+        keys = new long[size];
+        scores = new int[size];
+        indexMask = size - 1;
+    }
+
+    /**
+     * Evaluates the pawn structure of a position, from the table if it holds the structure.
+     * <p>
+     * An empty entry has the key 0 and the value 0, which is also the right answer for a position without pawns.
+     *
+     * @param board The board that holds the position.
+     * @return The value of the pawn structure from the perspective of the user, see PawnStructure.evaluate().
+     */
+    public int evaluate(BitBoard board) {
+        probes++;
+        long key = board.getPawnKey();
+        int index = (int) key & indexMask;
+        if (keys[index] == key) {
+            hits++;
+            return scores[index];
+        }
+        int score = PawnStructure.evaluate(board);
+        keys[index] = key;
+        scores[index] = score;
+        return score;
+    }
+
+    /**
+     * Sets all counters to zero.
+     */
+    public void resetStatistics() {
+        probes = 0;
+        hits = 0;
+    }
+
+    /**
+     * @return The ratio of evaluations that were answered from the table, between 0 and 1.
+     */
+    public double getHitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    /**
+     * Creates a readable summary of the counters for the console output.
+     *
+     * @return A String value that holds the size of the table and its counters.
+     */
+    public String statistics() {
+        return String.format("pawn hash %d entries, probes %d, hits %d (%.1f%%)", keys.length, probes, hits,
+                getHitRate() * 100);
+    }
+}
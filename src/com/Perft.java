@@ -0,0 +1,234 @@
+package com;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class counts the positions that can be reached from a given position in a given number of moves (perft).
+ * The counts of many positions are well known, so comparing them is the standard way to prove that the move
+ * generation is still correct after a change, and the time it takes is a benchmark of the move generation.
+ * <p>
+ * The moves of the root position are counted in parallel in a fork-join pool, each on its own copy of the board.
+ * Optionally the counts of positions below the root are remembered in a hash table shared by all threads, so that
+ * transpositions are only counted once.
+ * <p>
+ * Usage: java com.Perft depth [fen] [-divide] [-threads n] [-hash megabytes], for example:
+ * java com.Perft 5 "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1" -divide -threads 4
+ *
+ * @author Janos Nagy
+ */
+public class Perft {
+    /**
+     * The board that this counter executes and undoes moves on.
+     */
+    private final BitBoard board;
+
+    /**
+     * One move list per ply, so that counting does not create any objects.
+     */
+    private final MoveList[] moveLists;
+
+    /**
+     * The table that remembers the counts of positions, or null.
+     */
+    private final Cache cache;
+
+    /**
+     * Constructs a counter.
+     *
+     * @param board The board that holds the root position. It is changed during counting and restored afterwards.
+     * @param depth The depth that is counted.
+     * @param cache The table that remembers the counts of positions, or null.
+     */
+    public Perft(BitBoard board, int depth, Cache cache) {
+        this.board = board;
+        this.cache = cache;
+        moveLists = new MoveList[Math.max(1, depth)];
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * Counts the positions that can be reached from the position of the board in the given number of moves.
+     *
+     * @param alliance The alliance that is about to move.
+     * @param depth    The number of moves, at least 1.
+     * @return The number of positions.
+     */
+    public long count(int alliance, int depth) {
+        long key = board.getKey() ^ Zobrist.sideKey(alliance);
+        if (cache != null && depth > 1) {
+            long cached = cache.probe(key, depth);
+            if (cached >= 0) {
+                return cached;
+            }
+        }
+
+        MoveList moves = moveLists[depth - 1];
+        Board.allLegalMoves(board, alliance, moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            board.makeMove(move);
+            nodes += count(alliance ^ 1, depth - 1);
+            board.unmakeMove(move);
+        }
+
+        if (cache != null) {
+            cache.store(key, depth, nodes);
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts the positions below every move of the root position, each move in its own fork-join task.
+     *
+     * @param board    The board that holds the root position. It is not changed.
+     * @param alliance The alliance that is about to move.
+     * @param depth    The number of moves, at least 1.
+     * @param threads  The number of threads of the fork-join pool.
+     * @param cache    The table that remembers the counts of positions, or null.
+     * @return The legal moves of the root position and the number of positions below each of them.
+     */
+    public static List<long[]> divide(BitBoard board, int alliance, int depth, int threads, Cache cache) {
+        MoveList rootMoves = new MoveList();
+        Board.allLegalMoves(board, alliance, rootMoves);
+
+        List<RecursiveTask<Long>> tasks = new ArrayList<>();
+        for (int i = 0; i < rootMoves.size(); i++) {
+            int move = rootMoves.get(i);
+            tasks.add(new RecursiveTask<Long>() {
+                @Override
+                protected Long compute() {
+                    if (depth == 1) {
+                        return 1L;
+                    }
+                    BitBoard copy = board.copy();
+                    copy.makeMove(move);
+                    return new Perft(copy, depth - 1, cache).count(alliance ^ 1, depth - 1);
+                }
+            });
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.submit(() -> RecursiveTask.invokeAll(tasks)).join();
+        } finally {
+            pool.shutdown();
+        }
+
+        List<long[]> results = new ArrayList<>();
+        for (int i = 0; i < rootMoves.size(); i++) {
+            results.add(new long[]{rootMoves.get(i), tasks.get(i).join()});
+        }
+        return results;
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length == 0 ? 0 : Integer.parseInt(args[0]);
+        if (depth < 1) {
+            System.out.println("Usage: java com.Perft depth [fen] [-divide] [-threads n] [-hash megabytes]");
+            System.out.println("The depth has to be at least 1.");
+            return;
+        }
+        String fen = Fen.START_POSITION;
+        boolean printDivide = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int hashSize = 0;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("-divide")) {
+                printDivide = true;
+            } else if (args[i].equals("-threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-hash")) {
+                hashSize = Integer.parseInt(args[++i]);
+            } else {
+                fen = args[i];
+            }
+        }
+
+        BitBoard board = Fen.toBoard(fen);
+        int alliance = Fen.sideToMove(fen);
+        Cache cache = hashSize > 0 ? new Cache(hashSize) : null;
+
+        long start = System.nanoTime();
+        List<long[]> results = divide(board, alliance, depth, threads, cache);
+        long time = System.nanoTime() - start;
+
+        long nodes = 0;
+        for (long[] result : results) {
+            if (printDivide) {
+                System.out.println(Move.toString((int) result[0]) + ": " + result[1]);
+            }
+            nodes += result[1];
+        }
+        System.out.println("perft " + depth + " of " + fen);
+        System.out.println(String.format("nodes %d, time %d ms, %d nodes/s, %d threads%s", nodes, time / 1000000,
+                nodes * 1000000000L / Math.max(1, time), threads, cache == null ? "" : ", hash " + hashSize + " MB"));
+    }
+
+    /**
+     * A hash table that remembers the number of positions below a position for a given depth. It is shared by all
+     * threads without locking: the key is stored XOR-ed with the entry, so a torn entry is never mistaken for a
+     * valid one (see TranspositionTable).
+     */
+    public static class Cache {
+        /**
+         * The hash keys of the positions, XOR-ed with the entry that belongs to them.
+         */
+        private final long[] keys;
+
+        /**
+         * The entries: the depth in the top 8 bits and the count in the other 56 bits.
+         */
+        private final long[] entries;
+
+        /**
+         * Constructs a cache.
+         *
+         * @param megabytes The size of the cache in megabytes. The number of entries is rounded down to a power of two.
+         */
+        public Cache(int megabytes) {
+            int entryCount = (int) Math.min(Long.highestOneBit(Math.max(1, (long) megabytes * 1024 * 1024 / 16)), 1 << 30);
+            keys = new long[entryCount];
+            entries = new long[entryCount];
+        }
+
+        /**
+         * Looks up the count of a position.
+         *
+         * @param key   The hash key of the position, including the side to move.
+         * @param depth The depth of the count.
+         * @return The number of positions, or -1 if it is not in the cache.
+         */
+        long probe(long key, int depth) {
+            int index = (int) key & (keys.length - 1);
+            long entry = entries[index];
+            if (entry != 0 && (keys[index] ^ entry) == key && (entry >>> 56) == depth) {
+                return entry & 0xFFFFFFFFFFFFFFL;
+            }
+            return -1;
+        }
+
+        /**
+         * Stores the count of a position, replacing whatever was stored in its slot.
+         *
+         * @param key   The hash key of the position, including the side to move.
+         * @param depth The depth of the count.
+         * @param nodes The number of positions.
+         */
+        void store(long key, int depth, long nodes) {
+            int index = (int) key & (keys.length - 1);
+            long entry = (long) depth << 56 | nodes;
+            keys[index] = key ^ entry;
+            entries[index] = entry;
+        }
+    }
+}
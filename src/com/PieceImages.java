@@ -0,0 +1,129 @@
+package com;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class holds the images of the pieces for the graphical user interface.
+ * <p>
+ * The twelve images are read from the images directory and decoded only once, the first time an image is needed or
+ * in the background at startup (see loadInBackground()). Images of other sizes are scaled once per size and shared
+ * by all fields of the board, so drawing the board does not touch the disk at all.
+ *
+ * @author Janos Nagy
+ */
+public class PieceImages {
+    /**
+     * The size of the image files in pixels. The images are drawn at this size unless another size is asked for.
+     */
+    public static final int IMAGE_SIZE = 36;
+
+    /**
+     * The first letter of the image files by color: images/WP.png is the white pawn, images/BP.png the black pawn.
+     * The second letter is the piece letter of Fen, indexed by piece type.
+     */
+    private static final String[] COLOR_LETTERS = {"B", "W"};
+    private static final String PIECE_LETTERS = " PNBRQK";
+
+    /**
+     * The decoded images indexed by color (0 for black, 1 for white) and piece type, or null before they are loaded.
+     */
+    private static BufferedImage[][] images;
+
+    /**
+     * The icons that were created so far, by color, piece type and size, see key().
+     */
+    private static final Map<Integer, ImageIcon> icons = new ConcurrentHashMap<>();
+
+    /**
+     * Starts reading the images in a background thread, so that the first drawing of the board does not have to
+     * wait for the disk.
+     */
+    public static void loadInBackground() {
+        Thread loader = new Thread(PieceImages::images, "piece image loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Returns the icon of a piece.
+     *
+     * @param white     true for the white piece, false for the black piece.
+     * @param pieceType The type of the piece, Constans.PAWN ... Constans.KING.
+     * @param size      The width and height of the icon in pixels.
+     * @return The icon, or null if the image file could not be read.
+     */
+    public static ImageIcon icon(boolean white, int pieceType, int size) {
+        int key = key(white, pieceType, size);
+        ImageIcon icon = icons.get(key);
+        if (icon == null) {
+            BufferedImage image = images()[white ? 1 : 0][pieceType];
+            if (image == null) {
+                return null;
+            }
+            icon = new ImageIcon(size == image.getWidth() && size == image.getHeight() ? image : scale(image, size));
+            icons.put(key, icon);
+        }
+        return icon;
+    }
+
+    /**
+     * Calculates the key of an icon in the icons map.
+     *
+     * @param white     true for the white piece, false for the black piece.
+     * @param pieceType The type of the piece.
+     * @param size      The size of the icon in pixels.
+     * @return An int value that is different for every combination of the parameters.
+     */
+    private static int key(boolean white, int pieceType, int size) {
+        return (size << 4) | (pieceType << 1) | (white ? 1 : 0);
+    }
+
+    /**
+     * Reads and decodes the images, unless it has already been done.
+     *
+     * @return The decoded images indexed by color (0 for black, 1 for white) and piece type. An image that could
+     * not be read is null.
+     */
+    private static synchronized BufferedImage[][] images() {
+        if (images == null) {
+            BufferedImage[][] loaded = new BufferedImage[2][PIECE_LETTERS.length()];
+            for (int color = 0; color < 2; color++) {
+                for (int pieceType = Constans.PAWN; pieceType <= Constans.KING; pieceType++) {
+                    String fileName = "images/" + COLOR_LETTERS[color] + PIECE_LETTERS.charAt(pieceType) + ".png";
+                    try {
+                        loaded[color][pieceType] = ImageIO.read(new File(fileName));
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+            images = loaded;
+        }
+        return images;
+    }
+
+    /**
+     * Scales an image to a square of the given size.
+     *
+     * @param image The image to scale.
+     * @param size  The width and height of the new image in pixels.
+     * @return A new image.
+     */
+    private static BufferedImage scale(BufferedImage image, int size) {
+        BufferedImage scaled = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.drawImage(image, 0, 0, size, size, null);
+        graphics.dispose();
+        return scaled;
+    }
+}
@@ -0,0 +1,145 @@
+package com;
+
+/**
+ * This class holds the piece-square tables of the evaluation: a small bonus or penalty for every piece type on every
+ * field, once for the middlegame and once for the endgame.
+ * <p>
+ * The two values are blended by the game phase, which falls from MAX_PHASE to 0 as the knights, bishops, rooks and
+ * queens leave the board. A king that hides behind its pawns in the middlegame walks to the centre in the endgame,
+ * and pawns are pushed harder as the pieces are exchanged.
+ * <p>
+ * BitBoard adds the values of a piece to its sums every time the piece is placed and subtracts them every time it is
+ * removed (see BitBoard.putPiece() and BitBoard.removePiece()), so making or undoing a move keeps the sums up to date
+ * and evaluate() never looks at the fields.
+ *
+ * @author Janos Nagy
+ */
+public class PieceSquareTables {
+    /**
+     * The weight of every piece type in the game phase, indexed by piece type. Pawns and kings do not count.
+     */
+    static final int[] PHASE_WEIGHTS = {0, 0, 1, 1, 2, 4, 0};
+
+    /**
+     * The game phase of the starting position: four knights, four bishops, four rooks and two queens. Promotions can
+     * take the phase of a position above it, so evaluate() caps it.
+     */
+    static final int MAX_PHASE = 24;
+
+    /**
+     * The tables from the perspective of the user, indexed by piece type: the first row of a table belongs to row 0
+     * (the AI's home row), just like the IDs of the fields. The AI uses the same tables with the rows reversed.
+     */
+    private static final int[][] MIDGAME_TABLES = new int[7][];
+    private static final int[][] ENDGAME_TABLES = new int[7][];
+
+    /**
+     * The values of every piece on every field, indexed by piece code (see BitBoard.pieceCode()) and field.
+     */
+    static final int[][] MIDGAME = new int[16][64];
+    static final int[][] ENDGAME = new int[16][64];
+
+    static {
+        MIDGAME_TABLES[Constans.PAWN] = new int[]{
+                0, 0, 0, 0, 0, 0, 0, 0,
+                30, 30, 30, 30, 30, 30, 30, 30,
+                10, 10, 20, 30, 30, 20, 10, 10,
+                5, 5, 10, 25, 25, 10, 5, 5,
+                0, 0, 0, 20, 20, 0, 0, 0,
+                5, -5, -10, 0, 0, -10, -5, 5,
+                5, 10, 10, -20, -20, 10, 10, 5,
+                0, 0, 0, 0, 0, 0, 0, 0};
+        ENDGAME_TABLES[Constans.PAWN] = new int[]{
+                0, 0, 0, 0, 0, 0, 0, 0,
+                50, 50, 50, 50, 50, 50, 50, 50,
+                30, 30, 30, 30, 30, 30, 30, 30,
+                20, 20, 20, 20, 20, 20, 20, 20,
+                10, 10, 10, 10, 10, 10, 10, 10,
+                5, 5, 5, 5, 5, 5, 5, 5,
+                0, 0, 0, 0, 0, 0, 0, 0,
+                0, 0, 0, 0, 0, 0, 0, 0};
+        MIDGAME_TABLES[Constans.KNIGHT] = new int[]{
+                -50, -40, -30, -30, -30, -30, -40, -50,
+                -40, -20, 0, 0, 0, 0, -20, -40,
+                -30, 0, 10, 15, 15, 10, 0, -30,
+                -30, 5, 15, 20, 20, 15, 5, -30,
+                -30, 0, 15, 20, 20, 15, 0, -30,
+                -30, 5, 10, 15, 15, 10, 5, -30,
+                -40, -20, 0, 5, 5, 0, -20, -40,
+                -50, -40, -30, -30, -30, -30, -40, -50};
+        ENDGAME_TABLES[Constans.KNIGHT] = MIDGAME_TABLES[Constans.KNIGHT];
+        MIDGAME_TABLES[Constans.BISHOP] = new int[]{
+                -20, -10, -10, -10, -10, -10, -10, -20,
+                -10, 0, 0, 0, 0, 0, 0, -10,
+                -10, 0, 5, 10, 10, 5, 0, -10,
+                -10, 5, 5, 10, 10, 5, 5, -10,
+                -10, 0, 10, 10, 10, 10, 0, -10,
+                -10, 10, 10, 10, 10, 10, 10, -10,
+                -10, 5, 0, 0, 0, 0, 5, -10,
+                -20, -10, -10, -10, -10, -10, -10, -20};
+        ENDGAME_TABLES[Constans.BISHOP] = MIDGAME_TABLES[Constans.BISHOP];
+        MIDGAME_TABLES[Constans.ROOK] = new int[]{
+                0, 0, 0, 0, 0, 0, 0, 0,
+                5, 10, 10, 10, 10, 10, 10, 5,
+                -5, 0, 0, 0, 0, 0, 0, -5,
+                -5, 0, 0, 0, 0, 0, 0, -5,
+                -5, 0, 0, 0, 0, 0, 0, -5,
+                -5, 0, 0, 0, 0, 0, 0, -5,
+                -5, 0, 0, 0, 0, 0, 0, -5,
+                0, 0, 0, 5, 5, 0, 0, 0};
+        ENDGAME_TABLES[Constans.ROOK] = MIDGAME_TABLES[Constans.ROOK];
+        MIDGAME_TABLES[Constans.QUEEN] = new int[]{
+                -20, -10, -10, -5, -5, -10, -10, -20,
+                -10, 0, 0, 0, 0, 0, 0, -10,
+                -10, 0, 5, 5, 5, 5, 0, -10,
+                -5, 0, 5, 5, 5, 5, 0, -5,
+                -5, 0, 5, 5, 5, 5, 0, -5,
+                -10, 0, 5, 5, 5, 5, 0, -10,
+                -10, 0, 0, 0, 0, 0, 0, -10,
+                -20, -10, -10, -5, -5, -10, -10, -20};
+        ENDGAME_TABLES[Constans.QUEEN] = MIDGAME_TABLES[Constans.QUEEN];
+        MIDGAME_TABLES[Constans.KING] = new int[]{
+                -30, -40, -40, -50, -50, -40, -40, -30,
+                -30, -40, -40, -50, -50, -40, -40, -30,
+                -30, -40, -40, -50, -50, -40, -40, -30,
+                -30, -40, -40, -50, -50, -40, -40, -30,
+                -20, -30, -30, -40, -40, -30, -30, -20,
+                -10, -20, -20, -20, -20, -20, -20, -10,
+                20, 20, 0, 0, 0, 0, 20, 20,
+                20, 30, 10, 0, 0, 10, 30, 20};
+        ENDGAME_TABLES[Constans.KING] = new int[]{
+                -50, -30, -30, -30, -30, -30, -30, -50,
+                -30, -20, -10, 0, 0, -10, -20, -30,
+                -30, -10, 20, 30, 30, 20, -10, -30,
+                -30, -10, 30, 40, 40, 30, -10, -30,
+                -30, -10, 30, 40, 40, 30, -10, -30,
+                -30, -10, 20, 30, 30, 20, -10, -30,
+                -30, -20, -10, 0, 0, -10, -20, -30,
+                -50, -30, -30, -30, -30, -30, -30, -50};
+
+        for (int pieceType = Constans.PAWN; pieceType <= Constans.KING; pieceType++) {
+            for (int square = 0; square < 64; square++) {
+                int userCode = BitBoard.pieceCode(Constans.HUMAN, pieceType);
+                int aiCode = BitBoard.pieceCode(Constans.AI, pieceType);
+                MIDGAME[userCode][square] = MIDGAME_TABLES[pieceType][square];
+                ENDGAME[userCode][square] = ENDGAME_TABLES[pieceType][square];
+                MIDGAME[aiCode][square] = MIDGAME_TABLES[pieceType][square ^ 56];
+                ENDGAME[aiCode][square] = ENDGAME_TABLES[pieceType][square ^ 56];
+            }
+        }
+    }
+
+    /**
+     * Blends the middlegame and endgame sums of a board by its game phase.
+     *
+     * @param board    The board that holds the position.
+     * @param alliance The alliance that is about to move, Constans.AI or Constans.HUMAN.
+     * @return The value of the placement of the pieces from the perspective of the alliance that is about to move.
+     */
+    public static int evaluate(BitBoard board, int alliance) {
+        int phase = Math.min(board.phase(), MAX_PHASE);
+        int midgame = board.midgame(alliance) - board.midgame(alliance ^ 1);
+        int endgame = board.endgame(alliance) - board.endgame(alliance ^ 1);
+        return (midgame * phase + endgame * (MAX_PHASE - phase)) / MAX_PHASE;
+    }
+}
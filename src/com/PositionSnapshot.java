@@ -0,0 +1,179 @@
+package com;
+
+/**
+ * This class holds everything the graphical user interface needs to know about the legal moves of one alliance in
+ * the current position: the legal moves indexed by their origin and the status of the game.
+ * <p>
+ * The legal moves are generated once per position. Afterwards every question (can a piece move from this field, can
+ * it move to that field, is the king in check, is it checkmate) is answered from the snapshot without generating
+ * the moves again. A snapshot is taken whenever the position of Board.position has changed, see of().
+ *
+ * @author Janos Nagy
+ */
+public class PositionSnapshot {
+    /**
+     * The status of the game from the point of view of the alliance of the snapshot.
+     */
+    public static final int PLAYING = 0;
+    public static final int CHECK = 1;
+    public static final int CHECKMATE = 2;
+    public static final int STALEMATE = 3;
+
+    /**
+     * The last snapshot of each alliance, indexed by alliance.
+     */
+    private static final PositionSnapshot[] snapshots = new PositionSnapshot[2];
+
+    /**
+     * The hash key of the position and the alliance that the moves belong to.
+     */
+    private final long key;
+    private final int alliance;
+
+    /**
+     * The legal moves of the alliance.
+     */
+    private final MoveList legalMoves = new MoveList();
+
+    /**
+     * The fields that each field's piece can legally move to, indexed by the ID of the origin field.
+     */
+    private final long[] destinations = new long[64];
+
+    /**
+     * The fields that at least one piece can legally move from, and the fields that at least one piece can legally
+     * move to.
+     */
+    private final long origins;
+    private final long allDestinations;
+
+    /**
+     * The status of the game, PLAYING, CHECK, CHECKMATE or STALEMATE.
+     */
+    private final int status;
+
+    /**
+     * Takes a snapshot of a position.
+     *
+     * @param board    The board that holds the position.
+     * @param alliance Constans.AI or Constans.HUMAN.
+     */
+    public PositionSnapshot(BitBoard board, int alliance) {
+        this.key = board.getKey();
+        this.alliance = alliance;
+        Board.allLegalMoves(board, alliance, legalMoves);
+
+        long origins = 0;
+        long allDestinations = 0;
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int move = legalMoves.get(i);
+            destinations[Move.origin(move)] |= 1L << Move.destination(move);
+            origins |= 1L << Move.origin(move);
+            allDestinations |= 1L << Move.destination(move);
+        }
+        this.origins = origins;
+        this.allDestinations = allDestinations;
+
+        boolean inCheck = Attacks.isSquareAttacked(board, board.kingSquare(alliance), alliance ^ 1);
+        if (legalMoves.size() == 0) {
+            status = inCheck ? CHECKMATE : STALEMATE;
+        } else {
+            status = inCheck ? CHECK : PLAYING;
+        }
+    }
+
+    /**
+     * Returns the snapshot of the current position (Board.position) for the given alliance. A new snapshot is only
+     * taken if the position has changed since the last call.
+     *
+     * @param alliance Constans.AI or Constans.HUMAN.
+     * @return The snapshot of the current position.
+     */
+    public static synchronized PositionSnapshot of(int alliance) {
+        PositionSnapshot snapshot = snapshots[alliance];
+        if (snapshot == null || snapshot.key != Board.position.getKey()) {
+            snapshot = new PositionSnapshot(Board.position, alliance);
+            snapshots[alliance] = snapshot;
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return The alliance that the moves of the snapshot belong to.
+     */
+    public int getAlliance() {
+        return alliance;
+    }
+
+    /**
+     * @return The legal moves of the alliance. The list must not be changed.
+     */
+    public MoveList legalMoves() {
+        return legalMoves;
+    }
+
+    /**
+     * @param origin The ID of a field (0-63).
+     * @return true if the piece on the field has at least one legal move.
+     */
+    public boolean canMoveFrom(int origin) {
+        return (origins & (1L << origin)) != 0;
+    }
+
+    /**
+     * @param destination The ID of a field (0-63).
+     * @return true if at least one piece can legally move to the field.
+     */
+    public boolean canMoveTo(int destination) {
+        return (allDestinations & (1L << destination)) != 0;
+    }
+
+    /**
+     * @param origin The ID of a field (0-63).
+     * @return A bitboard of the fields that the piece on the field can legally move to.
+     */
+    public long destinations(int origin) {
+        return destinations[origin];
+    }
+
+    /**
+     * Finds the legal move between two fields. Pawns are always promoted to queens, so there is at most one.
+     *
+     * @param origin      The ID of the field (0-63) that the piece moves from.
+     * @param destination The ID of the field (0-63) that the piece moves to.
+     * @return The move, or Move.NO_MOVE if it is not legal.
+     */
+    public int move(int origin, int destination) {
+        if (origin < 0 || (destinations[origin] & (1L << destination)) == 0) {
+            return Move.NO_MOVE;
+        }
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int move = legalMoves.get(i);
+            if (Move.origin(move) == origin && Move.destination(move) == destination) {
+                return move;
+            }
+        }
+        return Move.NO_MOVE;
+    }
+
+    /**
+     * @return The status of the game, PLAYING, CHECK, CHECKMATE or STALEMATE.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return true if the king of the alliance is in check, including checkmate.
+     */
+    public boolean isCheck() {
+        return status == CHECK || status == CHECKMATE;
+    }
+
+    /**
+     * @return true if the alliance has no legal moves.
+     */
+    public boolean isGameOver() {
+        return status == CHECKMATE || status == STALEMATE;
+    }
+}
@@ -27,14 +27,20 @@ public class Rook {
     };
 
     /**
-     * This function creates a list of possible rook - moves that are valid according to the rules of the game and to the current state
-     * of the chessboard.
+     * This function adds the possible rook - moves that are valid according to the rules of the game and to the current state
+     * of the chessboard to a list of moves.
      *
-     * @param currentPosition The current position of the rook. This position here is represented by a single int which
-     *                        refers to the ID of the field (0-63) on the board.
-     * @return A single String value that holds all possible legal moves of the rook from the given position.
+     * @param board               The board that holds the position.
+     * @param currentPosition     The current position of the rook. This position here is represented by a single int which
+     *                            refers to the ID of the field (0-63) on the board.
+     * @param alliance            The alliance of the rook, Constans.AI or Constans.HUMAN.
+     * @param allowedDestinations A bitboard of the fields that the rook may move to without leaving its king in check,
+     *                            see Board.allLegalMoves().
+     * @param moves               The list that the legal moves of the rook are added to.
      */
-    public static String legalMoves(int currentPosition) {
-        return Move.legalMoves(currentPosition, legalMoveIndex);
+    public static void legalMoves(BitBoard board, int currentPosition, int alliance, long allowedDestinations,
+                                  MoveList moves) {
+        long attacks = Attacks.rookAttacks(currentPosition, board.allPieces);
+        Move.addMoves(board, currentPosition, attacks & ~board.occupancy(alliance) & allowedDestinations, moves);
     }
 }
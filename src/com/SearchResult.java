@@ -0,0 +1,115 @@
+package com;
+
+/**
+ * This class holds the result of a search: the chosen move, the value associated with it and how much work the
+ * search did to find them.
+ *
+ * @author Janos Nagy
+ */
+public class SearchResult {
+    /**
+     * An int value that represents the chosen move, see Move.
+     */
+    private final int move;
+
+    /**
+     * The value of the chosen move from the perspective of the alliance that makes the move.
+     */
+    private final int score;
+
+    /**
+     * The depth of the last completed iteration of the search.
+     */
+    private final int depth;
+
+    /**
+     * The number of positions that the search visited.
+     */
+    private final long nodes;
+
+    /**
+     * The moves that the search expects both sides to play, starting with the chosen move.
+     */
+    private final int[] principalVariation;
+
+    /**
+     * Constructs a search result without a principal variation.
+     *
+     * @param move  An int value that represents the chosen move.
+     * @param score The value associated with the move.
+     * @param depth The depth of the last completed iteration of the search.
+     * @param nodes The number of positions that the search visited.
+     */
+    public SearchResult(int move, int score, int depth, long nodes) {
+        this(move, score, depth, nodes, new int[0]);
+    }
+
+    /**
+     * Constructs a search result.
+     *
+     * @param move               An int value that represents the chosen move.
+     * @param score              The value associated with the move.
+     * @param depth              The depth of the last completed iteration of the search.
+     * @param nodes              The number of positions that the search visited.
+     * @param principalVariation The moves that the search expects both sides to play, starting with the chosen move.
+     */
+    public SearchResult(int move, int score, int depth, long nodes, int[] principalVariation) {
+        this.move = move;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.principalVariation = principalVariation;
+    }
+
+    /**
+     * @return An int value that represents the chosen move, or Move.NO_MOVE if there was no legal move.
+     */
+    public int getMove() {
+        return move;
+    }
+
+    /**
+     * @return The value associated with the chosen move.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return The depth of the last completed iteration of the search.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return The number of positions that the search visited.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return The moves that the search expects both sides to play, starting with the chosen move. The array may be
+     * shorter than the depth of the search, for example if the game ends earlier.
+     */
+    public int[] getPrincipalVariation() {
+        return principalVariation.clone();
+    }
+
+    /**
+     * Creates a readable representation of the principal variation for the console output.
+     *
+     * @return The moves separated by spaces, for example "e2e4 e7e5".
+     */
+    public String principalVariationToString() {
+        StringBuilder text = new StringBuilder();
+        for (int move : principalVariation) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.append(Move.toString(move));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,633 @@
+package com;
+
+import java.util.Arrays;
+
+/**
+ * This class runs the alpha - beta search of Decision on a private copy of the position, so that several searchers
+ * can work on the same position at the same time, each in its own thread (see Decision.search()).
+ * <p>
+ * The searchers only share the transposition table and the stop signal of Decision. A searcher that finishes a
+ * position first leaves its results in the table, and the other searchers pick them up as soon as they reach the same
+ * position, which is what makes the parallel search faster than a single searcher (Lazy SMP).
+ *
+ * @author Janos Nagy
+ */
+public class Searcher {
+    /**
+     * Ordering scores of the different kinds of moves, see scoreMoves(). The move from the transposition table comes
+     * first, then captures and pawn promotions, then the killer moves, then all other moves.
+     */
+    private static final int HASH_MOVE_SCORE = 1000000;
+    private static final int CAPTURE_SCORE = 100000;
+    private static final int FIRST_KILLER_SCORE = 90000;
+    private static final int SECOND_KILLER_SCORE = 80000;
+
+    /**
+     * The safety margin of delta pruning in the quiescence search, see quiescence(). A capture is skipped if the
+     * position would still be worse than alpha by this much after winning the captured piece.
+     */
+    private static final int DELTA_MARGIN = 200;
+
+    /**
+     * Null-move pruning is only tried this far from the leaves, see alphaBeta().
+     */
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+
+    /**
+     * If the pieces of the side to move other than pawns and the king are worth no more than this, a null-move
+     * cut-off is verified by a normal search, because such endgames are prone to zugzwang.
+     */
+    private static final int NULL_MOVE_VERIFICATION_MATERIAL = 500;
+
+    /**
+     * Late move reductions are only applied this far from the leaves, and only to moves that come after this many
+     * moves in the ordered list, see alphaBeta().
+     */
+    private static final int LATE_MOVE_MIN_DEPTH = 3;
+    private static final int LATE_MOVE_INDEX = 3;
+
+    /**
+     * The half width of the first aspiration window around the value of the previous iteration, see
+     * iterativeDeepening(). It doubles every time the value falls outside the window.
+     */
+    private static final int ASPIRATION_WINDOW = 50;
+
+    /**
+     * Aspiration windows are only used from this depth on, because the values of very shallow searches jump around
+     * too much.
+     */
+    private static final int ASPIRATION_MIN_DEPTH = 4;
+
+    /**
+     * The private copy of the position that this searcher executes and undoes moves on.
+     */
+    private final BitBoard position = new BitBoard();
+
+    /**
+     * The legal moves of the root position. Their ordering scores are the ones of scoreMoves() before the first
+     * iteration, and afterwards the number of positions that the last call of searchRoot() visited below each move,
+     * see searchRoot().
+     */
+    private final MoveList rootMoves = new MoveList();
+
+    /**
+     * One move list per ply, reserved when the searcher is created. A position at a given ply always generates,
+     * scores and iterates its moves in the list of that ply, so the search does not create any objects while it
+     * runs. The lists of the plies below it are used by the positions after its moves.
+     */
+    private final MoveList[] moveStack = new MoveList[Decision.MAX_PLY + 1];
+
+    /**
+     * Two quiet moves per ply that recently caused a beta cut-off. A move that refutes one position is likely to refute
+     * its siblings too, so these moves are tried right after the captures.
+     */
+    private final int[][] killerMoves = new int[Decision.MAX_PLY][2];
+
+    /**
+     * Caches the evaluation of the pawn structures that this searcher has seen, see Decision.evaluate().
+     */
+    private final PawnTable pawnTable = new PawnTable(PawnTable.DEFAULT_ENTRIES);
+
+    /**
+     * The triangular principal variation table: row ply holds the best line found from the position at that ply,
+     * from index ply to pvLength[ply] - 1. When a move becomes the best move of a position, the line of the position
+     * after it (row ply + 1) is copied behind it, so row 0 holds the expected line of the whole search.
+     */
+    private final int[][] pvTable = new int[Decision.MAX_PLY + 1][Decision.MAX_PLY + 1];
+    private final int[] pvLength = new int[Decision.MAX_PLY + 1];
+
+    /**
+     * The principal variation of the last completed iteration.
+     */
+    private int[] principalVariation = new int[0];
+
+    /**
+     * True for the searcher whose result is played. Only the main searcher checks the time and node budget.
+     */
+    private final boolean main;
+
+    /**
+     * The alliance that is about to move in the root position.
+     */
+    private int rootAlliance;
+
+    /**
+     * The number of positions visited by this searcher in the current search.
+     */
+    private long nodes;
+
+    /**
+     * The depth of the last iteration that this searcher completed.
+     */
+    private int completedDepth;
+
+    /**
+     * The value of the best move found by the last call of searchRoot().
+     */
+    private int rootScore;
+
+    /**
+     * Constructs a searcher.
+     *
+     * @param main true for the searcher whose result is played, false for a helper.
+     */
+    public Searcher(boolean main) {
+        this.main = main;
+        for (int ply = 0; ply < moveStack.length; ply++) {
+            moveStack[ply] = new MoveList();
+        }
+    }
+
+    /**
+     * Copies the position that is about to be searched and resets the state left by the previous search.
+     *
+     * @param board    The board that holds the position. It is not changed by the search.
+     * @param alliance The alliance that is about to move.
+     */
+    public void prepare(BitBoard board, int alliance) {
+        position.copyFrom(board);
+        rootAlliance = alliance;
+        Board.allLegalMoves(position, alliance, rootMoves);
+        nodes = 0;
+        completedDepth = 0;
+        principalVariation = new int[0];
+        for (int[] killers : killerMoves) {
+            killers[0] = Move.NO_MOVE;
+            killers[1] = Move.NO_MOVE;
+        }
+        scoreMoves(rootMoves, Move.NO_MOVE, 0);
+    }
+
+    /**
+     * @return The pawn hash table of this searcher.
+     */
+    public PawnTable getPawnTable() {
+        return pawnTable;
+    }
+
+    /**
+     * @return The number of positions visited by this searcher in the current search.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Searches the prepared position with iterative deepening: to depth firstDepth, firstDepth + 1, ... until the
+     * maximum depth is reached or Decision stops the search.
+     * <p>
+     * An iteration that is interrupted is thrown away, so the result always comes from the last completed iteration.
+     * The first iteration of the main searcher is never interrupted by the budget. Every iteration leaves its results
+     * in the transposition table, so the next, deeper iteration tries the best moves of the previous one first.
+     * <p>
+     * From ASPIRATION_MIN_DEPTH on, an iteration first searches a narrow window around the value of the previous
+     * one, because the value rarely changes much from one depth to the next and a narrow window cuts off far more
+     * positions. If the value falls outside the window, the window is widened on that side and the iteration is
+     * repeated.
+     *
+     * @param firstDepth The depth of the first iteration. Helpers start at different depths, so that they do not all
+     *                   search the same tree in the same order.
+     * @param maxDepth   The depth of the last iteration.
+     * @return A SearchResult object that holds the best move of the last completed iteration and its value. The move
+     * is Move.NO_MOVE if no iteration was completed.
+     */
+    public SearchResult iterativeDeepening(int firstDepth, int maxDepth) {
+        int bestMove = Move.NO_MOVE;
+        int bestScore = 0;
+        for (int depth = firstDepth; depth <= maxDepth; depth++) {
+            int alpha = -Decision.INFINITY;
+            int beta = Decision.INFINITY;
+            int window = ASPIRATION_WINDOW;
+            if (depth >= ASPIRATION_MIN_DEPTH && completedDepth > 0) {
+                alpha = Math.max(bestScore - window, -Decision.INFINITY);
+                beta = Math.min(bestScore + window, Decision.INFINITY);
+            }
+
+            int move;
+            while (true) {
+                move = searchRoot(depth, alpha, beta);
+                if (Decision.stopped) {
+                    break;
+                }
+                if (rootScore <= alpha && alpha > -Decision.INFINITY) {
+                    window *= 2;
+                    alpha = Math.max(rootScore - window, -Decision.INFINITY);
+                } else if (rootScore >= beta && beta < Decision.INFINITY) {
+                    window *= 2;
+                    beta = Math.min(rootScore + window, Decision.INFINITY);
+                } else {
+                    break;
+                }
+            }
+            if (Decision.stopped) {
+                break;
+            }
+            completedDepth = depth;
+            bestMove = move;
+            bestScore = rootScore;
+            principalVariation = Arrays.copyOf(pvTable[0], pvLength[0]);
+            if (Math.abs(bestScore) >= Decision.MATE_SCORE - Decision.MAX_PLY) {
+                break;
+            }
+        }
+        return new SearchResult(bestMove, bestScore, completedDepth, nodes, principalVariation);
+    }
+
+    /**
+     * Returns the hash key of the current position with the given alliance to move.
+     *
+     * @param alliance The alliance that is about to move, Constans.AI or Constans.HUMAN.
+     * @return The key that the position is stored under in the transposition table.
+     */
+    private long positionKey(int alliance) {
+        return position.getKey() ^ Zobrist.sideKey(alliance);
+    }
+
+    /**
+     * Searches every legal move of the root position to the given depth and remembers the value of the best one
+     * in rootScore. The first move is searched with the full window, the others as in alphaBeta().
+     * <p>
+     * The best move of the previous iteration (or the move from the transposition table) is searched first. The
+     * other moves follow in the order of the number of positions that the previous call visited below them: a move
+     * that took a lot of work to refute is likely to be the best one at the next depth. The first call orders them
+     * like alphaBeta() does, captures by MVV-LVA first.
+     *
+     * @param depth an int value that represents the amount of steps that the search thinks ahead.
+     * @param alpha The lower end of the window. If rootScore is not larger, the search failed low and rootScore is
+     *              only an upper bound of the value.
+     * @param beta  The upper end of the window. If rootScore is not smaller, the search failed high and rootScore is
+     *              only a lower bound of the value.
+     * @return The best move, which is only valid if the search was not stopped.
+     */
+    private int searchRoot(int depth, int alpha, int beta) {
+        TranspositionTable transpositionTable = Decision.transpositionTable;
+        long key = positionKey(rootAlliance);
+        int firstMove = principalVariation.length > 0 ? principalVariation[0]
+                : TranspositionTable.move(transpositionTable.probe(key));
+        for (int i = 0; i < rootMoves.size(); i++) {
+            if (rootMoves.get(i) == firstMove) {
+                rootMoves.setScore(i, Integer.MAX_VALUE);
+            }
+        }
+        int originalAlpha = alpha;
+        int bestScore = -Decision.INFINITY;
+        int bestMove = rootMoves.pickNext(0);
+        pvLength[0] = 0;
+
+        for (int i = 0; i < rootMoves.size(); i++) {
+            int move = rootMoves.pickNext(i);
+            long nodesBefore = nodes;
+            position.makeMove(move);
+            int score;
+            if (i == 0) {
+                score = -alphaBeta(rootAlliance ^ 1, depth - 1, 1, -beta, -alpha, true);
+            } else {
+                score = -alphaBeta(rootAlliance ^ 1, depth - 1, 1, -alpha - 1, -alpha, true);
+                if (score > alpha && score < beta && !Decision.stopped) {
+                    score = -alphaBeta(rootAlliance ^ 1, depth - 1, 1, -beta, -alpha, true);
+                }
+            }
+            position.unmakeMove(move);
+            if (Decision.stopped) {
+                return bestMove;
+            }
+            rootMoves.setScore(i, (int) Math.min(nodes - nodesBefore, Integer.MAX_VALUE - 1));
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    updatePrincipalVariation(move, 0);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        rootScore = bestScore;
+        int bound = TranspositionTable.UPPER_BOUND;
+        if (bestScore >= beta) {
+            bound = TranspositionTable.LOWER_BOUND;
+        } else if (bestScore > originalAlpha) {
+            bound = TranspositionTable.EXACT;
+        }
+        transpositionTable.store(key, bestMove, Decision.scoreToTable(bestScore, 0), depth, bound);
+        return bestMove;
+    }
+
+    /**
+     * Makes the given move the first move of the principal variation of its ply, followed by the principal variation
+     * of the position after the move.
+     *
+     * @param move The new best move of the position.
+     * @param ply  an int value that represents the amount of steps between the root of the decision tree and the position.
+     */
+    private void updatePrincipalVariation(int move, int ply) {
+        pvTable[ply][ply] = move;
+        System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+        pvLength[ply] = pvLength[ply + 1];
+    }
+
+    /**
+     * Counts a visited position. Once every Decision.CHECK_INTERVAL positions the count is added to the total of all
+     * searchers, and the main searcher checks the budget of the search.
+     */
+    private void countNode() {
+        if ((++nodes & (Decision.CHECK_INTERVAL - 1)) == 0) {
+            long totalNodes = Decision.searchedNodes.addAndGet(Decision.CHECK_INTERVAL);
+            if (main && completedDepth > 0) {
+                Decision.checkLimits(totalNodes);
+            }
+        }
+    }
+
+    /**
+     * This recursive function implements the Minimax and Alpha - Beta Pruning algorithms in their negamax form: the
+     * value of a position is always calculated from the perspective of the alliance that is about to move.
+     * The two alliances take turns by passing the opposite alliance to the recursive call, so the board is never
+     * mirrored during the search.
+     * <p>
+     * Two techniques make the search skip work that is very likely useless:
+     * <p>
+     * Null-move pruning: the side to move passes and the opponent is searched at a reduced depth. If the position is
+     * still good enough for a beta cut-off, a real move would almost certainly be better still, so the position is
+     * cut off without searching any moves. This fails in zugzwang, where passing would be the best move, so it is not
+     * tried with pawns only, and in endgames with little material the cut-off is verified by a normal search.
+     * <p>
+     * Late move reductions: quiet moves at the end of the ordered list rarely turn out to be the best, so they are
+     * searched one step shallower. A move that beats alpha anyway is searched again to the full depth.
+     * <p>
+     * The moves are searched as a principal variation search: the first move, which is most likely the best, is
+     * searched with the full window, and every other move only with a zero window (alpha, alpha + 1) that merely
+     * proves it is not better. Only a move that turns out to be better is searched again with the full window.
+     * Positions searched with a zero window cannot be on the principal variation, so only those are cut off by the
+     * transposition table and by null moves; that keeps the principal variation complete.
+     * <p>
+     * Endgame positions that are found in the tablebases (see Tablebase) are not searched at all: their exact value
+     * is returned.
+     *
+     * @param alliance The alliance that is about to move, Constans.AI or Constans.HUMAN.
+     * @param depth an int value that represents the amount of steps that are still to be thought ahead.
+     * @param ply   an int value that represents the amount of steps between the root of the decision tree and this call.
+     * @param alpha holds the int value of the currently most valuable move of the side to move.
+     * @param beta  holds the int value of the currently most valuable move of the opponent, negated.
+     * @param nullMoveAllowed false right after a null move, so that the two sides do not pass in turn.
+     * @return An int value that represents the value of the position. If it is not larger than alpha or not smaller
+     * than beta, it is only a bound of the real value.
+     */
+    private int alphaBeta(int alliance, int depth, int ply, int alpha, int beta, boolean nullMoveAllowed) {
+        pvLength[ply] = ply;
+        countNode();
+        if (Decision.stopped) {
+            return 0;
+        }
+        if (ply >= Decision.MAX_PLY - 1) {
+            return Decision.evaluate(position, alliance, pawnTable);
+        }
+
+        if (Long.bitCount(position.allPieces) <= Tablebase.MAX_PIECES) {
+            int tablebaseScore = Tablebase.score(position, alliance, ply);
+            if (tablebaseScore != Tablebase.NOT_FOUND) {
+                return tablebaseScore;
+            }
+        }
+
+        TranspositionTable transpositionTable = Decision.transpositionTable;
+        long key = positionKey(alliance);
+        int hashMove = Move.NO_MOVE;
+        boolean principalVariationNode = beta - alpha > 1;
+        if (depth > 0) {
+            long entry = transpositionTable.probe(key);
+            if (entry != 0) {
+                hashMove = TranspositionTable.move(entry);
+                if (TranspositionTable.depth(entry) >= depth && !principalVariationNode) {
+                    int score = Decision.scoreFromTable(TranspositionTable.score(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT ||
+                            (bound == TranspositionTable.LOWER_BOUND && score >= beta) ||
+                            (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+        }
+
+        if (depth <= 0) {
+            return quiescence(alliance, ply, alpha, beta);
+        }
+
+        boolean inCheck = Attacks.isSquareAttacked(position, position.kingSquare(alliance), alliance ^ 1);
+        if (Decision.nullMovePruning && nullMoveAllowed && !inCheck && !principalVariationNode
+                && depth >= NULL_MOVE_MIN_DEPTH
+                && beta < Decision.MATE_SCORE - Decision.MAX_PLY) {
+            int pieceMaterial = position.material(alliance) - Constans.PIECE_VALUES[Constans.KING]
+                    - Long.bitCount(position.pieces(alliance, Constans.PAWN)) * Constans.PIECE_VALUES[Constans.PAWN];
+            if (pieceMaterial > 0 && Decision.evaluate(position, alliance, pawnTable) >= beta) {
+                int reducedDepth = depth - 1 - (depth > 6 ? 3 : 2);
+                int score = -alphaBeta(alliance ^ 1, reducedDepth, ply + 1, -beta, -beta + 1, false);
+                if (Decision.stopped) {
+                    return 0;
+                }
+                if (score >= beta && pieceMaterial <= NULL_MOVE_VERIFICATION_MATERIAL) {
+                    score = alphaBeta(alliance, reducedDepth, ply, beta - 1, beta, false);
+                    if (Decision.stopped) {
+                        return 0;
+                    }
+                }
+                if (score >= beta) {
+                    return score >= Decision.MATE_SCORE - Decision.MAX_PLY ? beta : score;
+                }
+                pvLength[ply] = ply;
+            }
+        }
+
+        MoveList allLegalMoves = moveStack[ply];
+        Board.allLegalMoves(position, alliance, allLegalMoves);
+        if (allLegalMoves.size() == 0) {
+            return Decision.getTerminalValue(position, alliance, ply);
+        }
+        scoreMoves(allLegalMoves, hashMove, ply);
+
+        int originalAlpha = alpha;
+        int bestScore = -Decision.INFINITY;
+        int bestMove = Move.NO_MOVE;
+        for (int i = 0; i < allLegalMoves.size(); i++) {
+            int move = allLegalMoves.pickNext(i);
+            position.makeMove(move);
+            int score;
+            if (i == 0) {
+                score = -alphaBeta(alliance ^ 1, depth - 1, ply + 1, -beta, -alpha, true);
+            } else {
+                int reducedDepth = depth - 1;
+                if (Decision.lateMoveReductions && i >= LATE_MOVE_INDEX && depth >= LATE_MOVE_MIN_DEPTH && !inCheck
+                        && allLegalMoves.getScore(i) == 0
+                        && !Attacks.isSquareAttacked(position, position.kingSquare(alliance ^ 1), alliance)) {
+                    reducedDepth--;
+                }
+                score = -alphaBeta(alliance ^ 1, reducedDepth, ply + 1, -alpha - 1, -alpha, true);
+                if (score > alpha && reducedDepth < depth - 1 && !Decision.stopped) {
+                    score = -alphaBeta(alliance ^ 1, depth - 1, ply + 1, -alpha - 1, -alpha, true);
+                }
+                if (score > alpha && score < beta && !Decision.stopped) {
+                    score = -alphaBeta(alliance ^ 1, depth - 1, ply + 1, -beta, -alpha, true);
+                }
+            }
+            position.unmakeMove(move);
+            if (Decision.stopped) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    updatePrincipalVariation(move, ply);
+                    if (alpha >= beta) {
+                        storeKiller(move, ply);
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = TranspositionTable.UPPER_BOUND;
+        if (bestScore >= beta) {
+            bound = TranspositionTable.LOWER_BOUND;
+        } else if (bestScore > originalAlpha) {
+            bound = TranspositionTable.EXACT;
+        }
+        transpositionTable.store(key, bestMove, Decision.scoreToTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    /**
+     * Searches only the captures and pawn promotions of a position at the end of the main search, until the position
+     * is quiet. Without this the search would stop in the middle of an exchange and take the material balance of that
+     * moment as the value of the position, for example after capturing a pawn that is defended by a queen.
+     * <p>
+     * The side to move does not have to capture, so the static evaluation of the position (the stand pat) is a lower
+     * bound of its value. If it already reaches beta there is no need to search further. Captures that could not raise
+     * the value to alpha even if the captured piece was won for free are skipped (delta pruning).
+     * <p>
+     * If the side to move is in check, standing pat is not possible: every legal move is searched instead.
+     *
+     * @param alliance The alliance that is about to move, Constans.AI or Constans.HUMAN.
+     * @param ply   an int value that represents the amount of steps between the root of the decision tree and this call.
+     * @param alpha holds the int value of the currently most valuable move of the side to move.
+     * @param beta  holds the int value of the currently most valuable move of the opponent, negated.
+     * @return An int value that represents the value of the position. If it is not larger than alpha or not smaller
+     * than beta, it is only a bound of the real value.
+     */
+    private int quiescence(int alliance, int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        countNode();
+        if (Decision.stopped) {
+            return 0;
+        }
+
+        boolean inCheck = Attacks.isSquareAttacked(position, position.kingSquare(alliance), alliance ^ 1);
+        int standPat = Decision.evaluate(position, alliance, pawnTable);
+        if (ply >= Decision.MAX_PLY - 1) {
+            return standPat;
+        }
+        if (!inCheck) {
+            if (standPat >= beta) {
+                return standPat;
+            }
+            if (standPat + Constans.PIECE_VALUES[Constans.QUEEN] * 2 + DELTA_MARGIN <= alpha) {
+                return standPat;
+            }
+            alpha = Math.max(alpha, standPat);
+        }
+
+        MoveList allLegalMoves = moveStack[ply];
+        Board.allLegalMoves(position, alliance, allLegalMoves);
+        if (allLegalMoves.size() == 0) {
+            return Decision.getTerminalValue(position, alliance, ply);
+        }
+        scoreMoves(allLegalMoves, Move.NO_MOVE, ply);
+
+        int bestScore = inCheck ? -Decision.INFINITY : standPat;
+        for (int i = 0; i < allLegalMoves.size(); i++) {
+            int move = allLegalMoves.pickNext(i);
+            if (!inCheck) {
+                int captured = Move.capturedType(move);
+                int promotion = Move.promotionType(move);
+                if (captured == Constans.NO_PIECE && promotion == Constans.NO_PIECE) {
+                    break;
+                }
+                int gain = Constans.PIECE_VALUES[captured];
+                if (promotion != Constans.NO_PIECE) {
+                    gain += Constans.PIECE_VALUES[promotion] - Constans.PIECE_VALUES[Constans.PAWN];
+                }
+                if (standPat + gain + DELTA_MARGIN <= alpha) {
+                    continue;
+                }
+            }
+
+            position.makeMove(move);
+            int score = -quiescence(alliance ^ 1, ply + 1, -beta, -alpha);
+            position.unmakeMove(move);
+            if (Decision.stopped) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    /**
+     * Sets the ordering score of every move on the list, so that the moves that are most likely to cause a beta
+     * cut-off are searched first. Captures are ordered by MVV-LVA (most valuable victim, least valuable attacker):
+     * capturing a queen with a pawn comes before capturing a pawn with a queen.
+     *
+     * @param moves    The legal moves of the position.
+     * @param hashMove The best move stored in the transposition table for the position, or Move.NO_MOVE.
+     * @param ply      an int value that represents the amount of steps between the root of the decision tree and the position.
+     */
+    private void scoreMoves(MoveList moves, int hashMove, int ply) {
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int score = 0;
+            if (move == hashMove) {
+                score = HASH_MOVE_SCORE;
+            } else if (Move.capturedType(move) != Constans.NO_PIECE || Move.promotionType(move) != Constans.NO_PIECE) {
+                score = CAPTURE_SCORE + (Move.capturedType(move) + Move.promotionType(move)) * 8 - Move.pieceType(move);
+            } else if (move == killerMoves[ply][0]) {
+                score = FIRST_KILLER_SCORE;
+            } else if (move == killerMoves[ply][1]) {
+                score = SECOND_KILLER_SCORE;
+            }
+            moves.setScore(i, score);
+        }
+    }
+
+    /**
+     * Remembers a move that caused a beta cut-off as a killer move of its ply. Captures and promotions are ordered
+     * well enough without this, so only quiet moves are remembered.
+     *
+     * @param move The move that caused the cut-off.
+     * @param ply  an int value that represents the amount of steps between the root of the decision tree and the position.
+     */
+    private void storeKiller(int move, int ply) {
+        if (Move.capturedType(move) != Constans.NO_PIECE || Move.promotionType(move) != Constans.NO_PIECE) {
+            return;
+        }
+        if (killerMoves[ply][0] != move) {
+            killerMoves[ply][1] = killerMoves[ply][0];
+            killerMoves[ply][0] = move;
+        }
+    }
+}
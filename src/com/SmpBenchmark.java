@@ -0,0 +1,99 @@
+package com;
+
+/**
+ * This class measures how much faster the parallel search is with more threads. Every position of a fixed set is
+ * searched to the same depth with 1, 2, 4, 8 and 16 threads, starting with an empty transposition table, and the time
+ * it takes to reach the depth is compared to the time of a single thread. The positions are searched once before the
+ * measurement, so that the JIT compiler has already compiled the search.
+ * <p>
+ * Usage: java com.SmpBenchmark [depth] [thread counts...], for example: java com.SmpBenchmark 8 1 2 4 8 16
+ *
+ * @author Janos Nagy
+ */
+public class SmpBenchmark {
+    /**
+     * The positions of the benchmark, given by the moves that lead to them from the starting position.
+     */
+    static final String[] POSITIONS = {
+            "",
+            "e2e4 e7e5 g1f3 b8c6 f1c4 g8f6",
+            "d2d4 d7d5 c2c4 e7e6 b1c3 g8f6 c1g5 f8e7",
+            "e2e4 c7c5 g1f3 d7d6 d2d4 c5d4 f3d4 g8f6 b1c3 a7a6",
+            "e2e4 d7d5 e4d5 d8d5 b1c3 d5a5 d2d4 c7c6 g1f3 g8f6",
+            "c2c4 e7e5 b1c3 g8f6 g2g3 d7d5 c4d5 f6d5 f1g2 d5b6 g1f3 b8c6",
+    };
+
+    /**
+     * The default depth that every position is searched to.
+     */
+    private static final int DEFAULT_DEPTH = 7;
+
+    /**
+     * The default thread counts.
+     */
+    private static final int[] DEFAULT_THREADS = {1, 2, 4, 8, 16};
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+        int[] threadCounts = DEFAULT_THREADS;
+        if (args.length > 1) {
+            threadCounts = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                threadCounts[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.println("Lazy SMP benchmark, depth " + depth + ", " + POSITIONS.length + " positions, "
+                + Runtime.getRuntime().availableProcessors() + " processors");
+        System.out.println(String.format("%8s %10s %8s %14s %12s", "threads", "time (ms)", "speedup", "nodes", "nodes/s"));
+
+        Decision.setThreads(1);
+        for (String position : POSITIONS) {
+            Decision.search(setUpPosition(position), depth - 1);
+        }
+
+        long singleThreadTime = 0;
+        for (int threads : threadCounts) {
+            Decision.setThreads(threads);
+            long totalTime = 0;
+            long totalNodes = 0;
+            for (String position : POSITIONS) {
+                int alliance = setUpPosition(position);
+                Decision.getTranspositionTable().clear();
+                long start = System.nanoTime();
+                SearchResult result = Decision.search(alliance, depth);
+                totalTime += System.nanoTime() - start;
+                totalNodes += result.getNodes();
+            }
+            if (singleThreadTime == 0) {
+                singleThreadTime = totalTime;
+            }
+            System.out.println(String.format("%8d %10d %8.2f %14d %12d", threads, totalTime / 1000000,
+                    (double) singleThreadTime / totalTime, totalNodes, totalNodes * 1000000000L / Math.max(1, totalTime)));
+        }
+        Decision.setThreads(1);
+    }
+
+    /**
+     * Sets up Board.position by executing the given moves from the starting position.
+     *
+     * @param moves The moves separated by spaces, see Move.toString().
+     * @return The alliance that is about to move in the position.
+     */
+    static int setUpPosition(String moves) {
+        Board.newGame();
+        int alliance = Constans.HUMAN;
+        for (String text : moves.trim().split(" +")) {
+            if (text.isEmpty()) {
+                continue;
+            }
+            int move = Move.fromString(Board.position, alliance, text);
+            if (move == Move.NO_MOVE) {
+                throw new IllegalArgumentException("Illegal move in benchmark position: " + text);
+            }
+            Board.executeMove(move);
+            alliance ^= 1;
+        }
+        return alliance;
+    }
+}
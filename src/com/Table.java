@@ -1,17 +1,15 @@
 package com;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.event.MouseListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 import static javax.swing.MenuSelectionManager.defaultManager;
 
@@ -43,15 +41,21 @@ public class Table extends Component {
      */
     private static final Dimension BOARD_PANEL_DIMENSION = new Dimension(600, 600);
     /**
-     * dimensions of the field panel
+     * the title of the frame
      */
-    private static final Dimension FIELD_PANEL_DIMENSION = new Dimension(10, 10);
+    private static final String TITLE = "Chess AI";
+
+    /**
+     * runs the search of the AI in the background. It is shared by all tables, so that starting a new game can
+     * cancel the search of the old one.
+     */
+    private static final Engine ENGINE = new Engine();
 
     /**
      * constructs a new table
      */
     public Table() {
-        this.gameFrame = new JFrame("Chess AI");
+        this.gameFrame = new JFrame(TITLE);
         this.gameFrame.setLayout(new BorderLayout());
         final JMenuBar myMenuBar = new JMenuBar();
         createMenuBar(myMenuBar);
@@ -62,6 +66,12 @@ public class Table extends Component {
         this.gameFrame.add(this.boardPanel, BorderLayout.CENTER);
         this.gameFrame.setVisible(true);
         this.gameFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        this.gameFrame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent windowEvent) {
+                ENGINE.cancel();
+            }
+        });
         this.isPlayerAllianceBlack = false;
 
     }
@@ -151,6 +161,7 @@ public class Table extends Component {
         exitMenuItem.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
+                ENGINE.cancel();
                 System.exit(0);
             }
         });
@@ -176,54 +187,206 @@ public class Table extends Component {
     }
 
     /**
-     * resets the board, stars a new game.
+     * resets the board, stars a new game. The search of the AI is cancelled if it is still thinking.
      */
     private void startNewGame() {
-        Board.chessBoard = new String[][]{
-                {"r", "k", "b", "q", "a", "b", "k", "r"},
-                {"p", "p", "p", "p", "p", "p", "p", "p"},
-                {" ", " ", " ", " ", " ", " ", " ", " "},
-                {" ", " ", " ", " ", " ", " ", " ", " "},
-                {" ", " ", " ", " ", " ", " ", " ", " "},
-                {" ", " ", " ", " ", " ", " ", " ", " "},
-                {"P", "P", "P", "P", "P", "P", "P", "P"},
-                {"R", "K", "B", "Q", "A", "B", "K", "R"}
-        };
+        ENGINE.cancel();
+        Board.newGame();
 
         Table.this.gameFrame.dispose();
         Table newTable = new Table();
     }
 
 
-    public class BoardPanel extends JPanel {
-        final List<TilePanel> boardTiles;
+    /**
+     * This class draws the whole chessboard as a single component.
+     * <p>
+     * The fields and pieces are painted with Graphics2D into a back buffer, which is copied to the screen when Swing
+     * asks for it. The component remembers what it painted on every field (the colour of the field and the piece), so
+     * drawBoard() only repaints the fields that changed since the last drawing: after a move normally the origin,
+     * the destination, the captured piece's field and the highlighted fields.
+     */
+    public class BoardPanel extends JComponent {
+        /**
+         * The light and dark colours of the fields, and the colours of the highlighted fields.
+         */
+        private final Color lightFieldColor = new Color(0xA5A3A5);
+        private final Color darkFieldColor = new Color(0x4F4E4E);
+        private final Color checkColor = new Color(0x5E0C0B);
+        private final Color lastDestinationColor = new Color(0x6E6C6E);
+        private final Color selectionColor = new Color(0x0F5716);
+
+        /**
+         * The image that holds the drawn board, or null if it has to be created.
+         */
+        private BufferedImage backBuffer;
+
+        /**
+         * What was painted on each field of the back buffer: the RGB value of the background and the image of the
+         * piece (see pieceImageOf()). -1 means that the field has to be painted again.
+         */
+        private final int[] paintedColors = new int[64];
+        private final int[] paintedPieces = new int[64];
 
         /**
          * Constructs a board panel.
          */
         BoardPanel() {
-            super(new GridLayout(8, 8));
-            this.boardTiles = new ArrayList<>();                                    // list of tiles on the board, should it be an array[64]??
-            for (int i = 0; i < 64; i++) {
-                final TilePanel tilePanel = new TilePanel(this, i);      // orders this tile to it's tileID
-                this.boardTiles.add(tilePanel);                                     // adds the tile to the list
-                add(tilePanel);                                                     // adds the tile to this board
-            }
             setPreferredSize(BOARD_PANEL_DIMENSION);
-            validate();
+            setOpaque(true);
+            addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(final MouseEvent e) {
+                    int fieldID = fieldAt(e.getX(), e.getY());
+                    if (fieldID != Move.NO_SQUARE) {
+                        fieldClicked(e, fieldID);
+                    }
+                }
+            });
         }
 
         /**
-         * executes of the graphical representation of the chessboard.
+         * executes of the graphical representation of the chessboard: repaints the fields whose colour or piece has
+         * changed since the last drawing.
          */
         public void drawBoard() {
-            removeAll();
-            for (final TilePanel tilePanel : boardTiles) {
-                tilePanel.drawTile();
-                add(tilePanel);
+            PositionSnapshot userPosition = PositionSnapshot.of(Constans.HUMAN);
+            if (userPosition.isCheck()) {
+                Move.clearUserMove();
+            }
+            if (backBuffer == null) {
+                repaint();
+                return;
+            }
+            Graphics2D graphics = backBuffer.createGraphics();
+            for (int fieldID = 0; fieldID < 64; fieldID++) {
+                paintField(graphics, fieldID, fieldColor(fieldID, userPosition));
+            }
+            graphics.dispose();
+        }
+
+        /**
+         * highlights the field where the user's move starts. The highlight disappears with the next drawBoard().
+         *
+         * @param fieldID an int value that identifies the field (0-63).
+         */
+        public void highlightOrigin(int fieldID) {
+            if (backBuffer == null) {
+                return;
+            }
+            Graphics2D graphics = backBuffer.createGraphics();
+            paintField(graphics, fieldID, selectionColor);
+            graphics.dispose();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            if (backBuffer == null || backBuffer.getWidth() != getWidth() || backBuffer.getHeight() != getHeight()) {
+                backBuffer = new BufferedImage(Math.max(1, getWidth()), Math.max(1, getHeight()), BufferedImage.TYPE_INT_RGB);
+                Arrays.fill(paintedColors, -1);
+                Arrays.fill(paintedPieces, -1);
+                PositionSnapshot userPosition = PositionSnapshot.of(Constans.HUMAN);
+                Graphics2D graphics = backBuffer.createGraphics();
+                for (int fieldID = 0; fieldID < 64; fieldID++) {
+                    paintField(graphics, fieldID, fieldColor(fieldID, userPosition));
+                }
+                graphics.dispose();
+            }
+            g.drawImage(backBuffer, 0, 0, null);
+        }
+
+        /**
+         * paints a field into the back buffer if its colour or piece has changed, and asks Swing to copy the field
+         * to the screen.
+         *
+         * @param graphics the graphics of the back buffer.
+         * @param fieldID  an int value that identifies the field (0-63).
+         * @param color    the background colour of the field.
+         */
+        private void paintField(Graphics2D graphics, int fieldID, Color color) {
+            int pieceImage = pieceImageOf(fieldID);
+            if (paintedColors[fieldID] == color.getRGB() && paintedPieces[fieldID] == pieceImage) {
+                return;
+            }
+            paintedColors[fieldID] = color.getRGB();
+            paintedPieces[fieldID] = pieceImage;
+
+            Rectangle bounds = fieldBounds(fieldID);
+            graphics.setColor(color);
+            graphics.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+            if (pieceImage != 0) {
+                ImageIcon icon = PieceImages.icon((pieceImage & 8) != 0, pieceImage & 7, PieceImages.IMAGE_SIZE);
+                if (icon != null) {
+                    graphics.drawImage(icon.getImage(),
+                            bounds.x + (bounds.width - icon.getIconWidth()) / 2,
+                            bounds.y + (bounds.height - icon.getIconHeight()) / 2, null);
+                }
+            }
+            repaint(bounds);
+        }
+
+        /**
+         * determines which image belongs on a field, depending on the piece that occupies it and on the alliance that
+         * the user chose.
+         *
+         * @param fieldID an int value that identifies the field (0-63).
+         * @return 0 for an empty field, otherwise the piece type, plus 8 if the piece is drawn white.
+         */
+        private int pieceImageOf(int fieldID) {
+            int pieceCode = Board.position.pieceAt(fieldID);
+            if (pieceCode == Constans.NO_PIECE) {
+                return 0;
+            }
+            boolean white = (BitBoard.alliance(pieceCode) == Constans.HUMAN) != getIsPlayerAllianceBlack();
+            return BitBoard.pieceType(pieceCode) | (white ? 8 : 0);
+        }
+
+        /**
+         * assigns the alternating light-gray and dark-gray colours of the fields of the chessboard, the red colour of
+         * the user's king in check and the colour of the destination of the user's last move.
+         *
+         * @param fieldID      an int value that identifies the field (0-63).
+         * @param userPosition the snapshot of the user's moves in the current position.
+         * @return the background colour of the field.
+         */
+        private Color fieldColor(int fieldID, PositionSnapshot userPosition) {
+            int row = fieldID / 8;
+            int column = fieldID % 8;
+            if (userPosition.isCheck() && fieldID == Board.position.kingSquare(Constans.HUMAN)) {
+                return checkColor;
+            }
+            if (fieldID == Move.getUserLastDestination() && userPosition.canMoveFrom(fieldID)) {
+                return lastDestinationColor;
+            }
+            return (row + column) % 2 == 0 ? lightFieldColor : darkFieldColor;
+        }
+
+        /**
+         * calculates the area of a field on the component.
+         *
+         * @param fieldID an int value that identifies the field (0-63).
+         * @return the rectangle that the field covers.
+         */
+        private Rectangle fieldBounds(int fieldID) {
+            int row = fieldID / 8;
+            int column = fieldID % 8;
+            int x = column * getWidth() / 8;
+            int y = row * getHeight() / 8;
+            return new Rectangle(x, y, (column + 1) * getWidth() / 8 - x, (row + 1) * getHeight() / 8 - y);
+        }
+
+        /**
+         * finds the field under a point of the component.
+         *
+         * @param x the x coordinate of the point.
+         * @param y the y coordinate of the point.
+         * @return an int value that identifies the field (0-63), or Move.NO_SQUARE if the point is outside the board.
+         */
+        private int fieldAt(int x, int y) {
+            if (x < 0 || y < 0 || x >= getWidth() || y >= getHeight()) {
+                return Move.NO_SQUARE;
             }
-            validate();
-            repaint();
+            return (y * 8 / getHeight()) * 8 + x * 8 / getWidth();
         }
     }
 
@@ -244,25 +407,81 @@ public class Table extends Component {
      */
     public int destinationRow;
 
+    /**
+     * Handles a click on a field of the board: the first click chooses the origin of the user's move, the second
+     * click its destination. Clicks are ignored while the AI is thinking.
+     *
+     * @param e       the mouse event of the click.
+     * @param fieldID an int value that identifies the clicked field (0-63).
+     */
+    private void fieldClicked(final MouseEvent e, final int fieldID) {
+        if (ENGINE.isThinking()) {
+            return;
+        }
+        if (e.getButton() == MouseEvent.BUTTON1 && Move.getUserMoveOrigin() == Move.NO_SQUARE) {
+            Move.setUserLastDestination(Move.NO_SQUARE);
+            boardPanel.drawBoard();
+
+            System.out.println(" FIRST CLICK ");
+            originRow = fieldID / 8;
+            originColumn = fieldID % 8;
+
+            firstClickHandler(originRow, originColumn);
+
+            System.out.println("origin : " + Move.getUserMoveOrigin());
+        } else if (e.getButton() == MouseEvent.BUTTON1) {
+            System.out.println(" SECOND CLICK ");
+            destinationRow = fieldID / 8;
+            destinationColumn = fieldID % 8;
+
+
+            createMovesOnSecondClick(originRow, originColumn, destinationRow, destinationColumn);
+
+            System.out.println("destination : " + destinationRow + " " + destinationColumn);
+            System.out.println("dragMove : " + Move.toString(Move.getUserMove()));
+            PositionSnapshot userPosition = PositionSnapshot.of(Constans.HUMAN);
+            MoveList userLegalsMoves = userPosition.legalMoves();
+
+            if (userPosition.getStatus() == PositionSnapshot.CHECKMATE) {
+                checkmatePopUp("Checkmate. Would you like to play another game?", "Checkmate.");
+            } else if (userPosition.getStatus() == PositionSnapshot.STALEMATE) {
+                checkmatePopUp("Stalemate. Would you like to play another game?", "Stalemate.");
+            }
+
+            System.out.println(userLegalsMoves);
+
+            if (moveValidator(userLegalsMoves, Move.getUserMove())) {
+                Board.executeMove(Move.getUserMove());
+                boardPanel.drawBoard();
+                aiMove();
+            }
+
+            if (Move.getUserMove() != Move.NO_MOVE) {
+                Move.setUserLastDestination(Move.destination(Move.getUserMove()));
+            }
+            Move.clearUserMove();
+
+            boardPanel.drawBoard();
+        }
+    }
+
     /**
      * Determines if the user is able to execute a valid move from the chosen position. If yes, it changes the background colour
-     * of the given tile panel to dark green.
+     * of the field to dark green.
      *
-     * @param tile         a TilePanel object where the move starts from
      * @param originRow    the x coordinate of the origin coordinate in a move
      * @param originColumn the y coordinate of the origin coordinate in a move
      * @return true if the user is able to execute a valid move from the chosen position.
      * false otherwise.
      */
-    private boolean firstClickHandler(TilePanel tile, int originRow, int originColumn) {
+    private boolean firstClickHandler(int originRow, int originColumn) {
         if (!Move.canIMoveFromHere(originRow, originColumn)) {
             Move.clearUserMove();
             return false;
         }
 
-        tile.setBackground(new Color(0x0F5716));
-        Move.appendUserMove(String.valueOf(originRow));
-        Move.appendUserMove(String.valueOf(originColumn));
+        boardPanel.highlightOrigin(originRow * 8 + originColumn);
+        Move.setUserMoveOrigin(originRow * 8 + originColumn);
         return true;
     }
 
@@ -275,31 +494,11 @@ public class Table extends Component {
      * @param destinationColumn the y coordinate of the destination in a move
      */
     private void createMovesOnSecondClick(int originRow, int originColumn, int destinationRow, int destinationColumn) {
-        if (destinationRow == 0 && originRow == 1 && Constans.USER_PAWN.equals(Board.chessBoard[originRow][originColumn])) {
-            //pawn promotion
-            Move.createPawnPromotionMove(String.valueOf(originColumn),
-                    String.valueOf(destinationColumn),
-                    Board.chessBoard[destinationRow][destinationColumn],
-                    "QP");
-        } else {
-            //regular move
-            Move.appendUserMove(String.valueOf(destinationRow));
-            Move.appendUserMove(String.valueOf(destinationColumn));
-
-            if (Pawn.isEnPassantMove(originRow, originColumn, destinationRow, destinationColumn)) {
-                Move.appendUserMove(Board.chessBoard[originRow][destinationColumn]);
-                Move.appendUserMove(String.valueOf(originRow));
-                Move.appendUserMove(String.valueOf(destinationColumn));
-            } else {
-                Move.appendUserMove(Board.chessBoard[destinationRow][destinationColumn]);
-                Move.appendUserMove(Constans.DOUBLE_SPACE);
-            }
-        }
+        Move.createUserMove(destinationRow * 8 + destinationColumn);
 
-        String move = Move.getUserMove();
         if (!Move.canIMoveFromHere(originRow, originColumn) || !Move.canIMoveHere(destinationRow, destinationColumn)) {
             Move.clearUserMove();
-            Move.setUserLastDestination("");
+            Move.setUserLastDestination(Move.NO_SQUARE);
         }
     }
 
@@ -322,6 +521,7 @@ public class Table extends Component {
         if (response == 0) {
             startNewGame();
         } else {
+            ENGINE.cancel();
             System.exit(0);
         }
     }
@@ -334,500 +534,72 @@ public class Table extends Component {
      * @return true if the list contains the given move
      * false otherwise
      */
-    private boolean moveValidator(String possibleMoves, String move) {
-        if (possibleMoves.replaceAll(move, "").length() < possibleMoves.length()) {
-            return true;
-        }
-        return false;
+    private boolean moveValidator(MoveList possibleMoves, int move) {
+        return move != Move.NO_MOVE && possibleMoves.contains(move);
     }
 
     /**
-     * creates and validates the AI's next move
+     * starts the search of the AI's next move in the background. The window keeps responding in the meantime, but the
+     * user cannot move until the AI has moved, see playAiMove(). If the position is in the opening book, the book move
+     * is played at once without searching.
      */
     private void aiMove() {
-        Board.mirrorBoardHorizontally();
-        String move = Decision.alphaBeta(Decision.globalDepth, 1000000, -1000000, "", Constans.AI);
-        String aiMovePossibilities = Board.allLegalMoves();
-
-        System.out.println("AI possible moves: ");
-        System.out.println(aiMovePossibilities);
-        System.out.println(move + " possible length: " + aiMovePossibilities.length());
-
-        if (aiMovePossibilities.length() == 0) {
+        PositionSnapshot aiPosition = PositionSnapshot.of(Constans.AI);
+        if (aiPosition.getStatus() == PositionSnapshot.CHECKMATE) {
             checkmatePopUp("Congratulations! Your opponent is in Checkmate.", "You won.");
-        } else {
-            if (moveValidator(aiMovePossibilities, move.substring(0, 7))) {
-                Board.executeMove(move);
-                Move.setUserLastDestination("");
-            } else {
-                System.out.println("the AI is trying to cheat!");
-            }
+            return;
+        } else if (aiPosition.getStatus() == PositionSnapshot.STALEMATE) {
+            checkmatePopUp("Stalemate. Would you like to play another game?", "Stalemate.");
+            return;
+        }
+
+        SearchResult bookMove = Decision.bookMove(Board.position, Constans.AI);
+        if (bookMove != null) {
+            System.out.println("book move");
+            ENGINE.cancel();
+            playAiMove(bookMove);
+            return;
         }
 
-        Board.mirrorBoardHorizontally();
+        gameFrame.setTitle(TITLE + " - thinking...");
+        ENGINE.startSearch(Constans.AI, this::playAiMove, this::aiMoveFailed);
     }
 
     /**
-     * This class provides the graphical representation of each field on the chessboard.
+     * reports a search of the AI that failed with an exception, instead of leaving the window waiting for a move that
+     * never comes. It is called on the event dispatch thread.
+     *
+     * @param exception the exception that ended the search.
      */
-    private class TilePanel extends JPanel {
-        /**
-         * an int value that identifies each field (0-63)
-         */
-        private final int tileID;
-
-        /**
-         * Constructor for the TilePanel class
-         *
-         * @param boardPanel the boardPanel that the fields are on
-         * @param tileID     an int value that identifies each field (0-63
-         */
-        TilePanel(final BoardPanel boardPanel,
-                  final int tileID) {
-
-            super(new GridBagLayout());
-            this.tileID = tileID;
-            setPreferredSize(FIELD_PANEL_DIMENSION);
-
-            assignTileColor();
-
-            if (getIsPlayerAllianceBlack()) {
-                playerAsBlack();
-            }
-            if (!getIsPlayerAllianceBlack()) {
-                playerAsWhite();
-            }
-
-
-            addMouseListener(new MouseListener() {
-
-                @Override
-                public void mouseClicked(final MouseEvent e) {
-                    if (e.getButton() == MouseEvent.BUTTON1 && Move.getUserMove() == "") {
-                        Move.setUserLastDestination("");
-                        boardPanel.drawBoard();
-
-                        System.out.println(" FIRST CLICK ");
-                        originRow = tileID / 8;
-                        originColumn = tileID % 8;
-
-                        TilePanel tile = (TilePanel) e.getSource();
-                        firstClickHandler(tile, originRow, originColumn);
-
-                        System.out.println("origin : " + Move.getUserMove());
-                    } else if (e.getButton() == MouseEvent.BUTTON1 && Move.getUserMove().length() == 2) {
-                        System.out.println(" SECOND CLICK ");
-                        destinationRow = tileID / 8;
-                        destinationColumn = tileID % 8;
-
-
-                        createMovesOnSecondClick(originRow, originColumn, destinationRow, destinationColumn);
-
-                        System.out.println("destination : " + destinationRow + " " + destinationColumn);
-                        System.out.println("dragMove : " + Move.getUserMove());
-                        String userLegalsMoves = Board.allLegalMoves();
-
-                        if (userLegalsMoves.length() == 0) {
-                            checkmatePopUp("Checkmate. Would you like to play another game?", "Checkmate.");
-                        }
-
-                        System.out.println(userLegalsMoves);
-
-                        if (moveValidator(userLegalsMoves, Move.getUserMove())) {
-                            Board.executeMove(Move.getUserMove());
-                            boardPanel.drawBoard();
-                            aiMove();
-                        }
-
-                        if (Move.getUserMove().length() >= 4) {
-                            Move.setUserLastDestination(Move.getUserMove());
-                            Move.clearUserMove();
-                        }
-
-                        boardPanel.drawBoard();
-                    }
-                }
-
-                @Override
-                public void mousePressed(final MouseEvent e) {
-
-                }
-
-                @Override
-                public void mouseReleased(final MouseEvent e) {
-
-                }
-
-                @Override
-                public void mouseEntered(final MouseEvent mouseEvent) {
-
-                }
-
-                @Override
-                public void mouseExited(final MouseEvent mouseEvent) {
-
-                }
-            });
-
-            validate();
-        }
-
-        private int getTileID() {
-            return this.tileID;
-        }
-
-        /**
-         * assings the alternating light-gray and dark-gray colours of the fields of the chessboard
-         */
-        private void assignTileColor() {
-            if (((this.tileID >= 0 && this.tileID <= 7 ||
-                    this.tileID >= 16 && this.tileID <= 23 ||
-                    this.tileID >= 32 && this.tileID <= 39 ||
-                    this.tileID >= 48 && this.tileID <= 55) &&
-                    this.tileID % 2 == 0)
-                    ||
-                    (this.tileID >= 8 && this.tileID <= 15 ||
-                            this.tileID >= 24 && this.tileID <= 31 ||
-                            this.tileID >= 40 && this.tileID <= 47 ||
-                            this.tileID >= 56 && this.tileID <= 63) &&
-                            this.tileID % 2 == 1) {
-
-                setBackground(new Color(0xA5A3A5));
-            } else {
-                setBackground(new Color(0x4F4E4E));
-            }
-            String move = Move.getUserLastDestination();
-
-            if (!Board.kingSafe() && Constans.USER_KING.equals(Board.chessBoard[tileID / 8][tileID % 8])) {
-                setBackground(new Color(0x5E0C0B));
-                Move.clearUserMove();
-            }
-
-            if (move.length() > 4) {
-                int destinationRow = Character.getNumericValue(move.charAt(2));
-                int destinationColumn = Character.getNumericValue(move.charAt(3));
-
-                if (tileID == destinationRow * 8 + destinationColumn) {
-                    if (Move.canIMoveFromHere(destinationRow, destinationColumn)) {
-                        setBackground(new Color(0x6E6C6E));
-                    }
-                }
-            }
-        }
-
-        /**
-         * the graphical representation of each field on the chessboard
-         */
-        public void drawTile() {
-            assignTileColor();
-
-            if (getIsPlayerAllianceBlack()) {
-                playerAsBlack();
-
-            } else if (!getIsPlayerAllianceBlack()) {
-                playerAsWhite();
-            }
-            //highlightLegals(board);
-            validate();
-            repaint();
-        }
+    private void aiMoveFailed(RuntimeException exception) {
+        gameFrame.setTitle(TITLE);
+        checkmatePopUp("The AI could not choose a move:\n" + exception + "\n \nWould you like to play another game?",
+                "Search failed.");
+    }
 
-        /**
-         * assigns white pieces to the user and black to the AI.
-         */
-        private void playerAsWhite() {
-            this.removeAll();
-            for (int i = 0; i <= 63; i++) {
-                //int j=-1,k=-1;
-                switch (Board.chessBoard[i / 8][i % 8]) {
-                    case "P":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        /*this.*/ImageIO.read(new File("images/WP.png"));
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-
-                    case "p":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        ImageIO.read(new File("images/BP.png"));
-                                /*this.*/
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-
-                    case "R":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        ImageIO.read(new File("images/WR.png"));
-                                /*this.*/
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-
-                    case "r":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        /*this.*/ImageIO.read(new File("images/BR.png"));
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-                    case "K":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        /*this.*/ImageIO.read(new File("images/WN.png"));
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-                    case "k":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        /*this.*/ImageIO.read(new File("images/BN.png"));
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-                    case "B":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        /*this.*/ImageIO.read(new File("images/WB.png"));
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-                    case "b":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        /*this.*/ImageIO.read(new File("images/BB.png"));
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-                    case "Q":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        /*this.*/ImageIO.read(new File("images/WQ.png"));
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-                    case "q":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        /*this.*/ImageIO.read(new File("images/BQ.png"));
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-                    case "A":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        /*this.*/ImageIO.read(new File("images/WK.png"));
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-                    case "a":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        /*this.*/ImageIO.read(new File("images/BK.png"));
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-                }
-            }
-        }
+    /**
+     * validates and executes the AI's move when the search has finished. It is called on the event dispatch thread.
+     *
+     * @param result the result of the search of the AI.
+     */
+    private void playAiMove(SearchResult result) {
+        gameFrame.setTitle(TITLE);
+        MoveList aiMovePossibilities = PositionSnapshot.of(Constans.AI).legalMoves();
 
-        /**
-         * assigns white pieces to the AI and black to the user.
-         */
-        private void playerAsBlack() {
-            this.removeAll();
-            for (int i = 0; i <= 63; i++) {
-                //int j=-1,k=-1;
-                switch (Board.chessBoard[i / 8][i % 8]) {
-                    case "p":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        /*this.*/ImageIO.read(new File("images/WP.png"));
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-
-                    case "P":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        ImageIO.read(new File("images/BP.png"));
-                                /*this.*/
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-
-                    case "r":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        ImageIO.read(new File("images/WR.png"));
-                                /*this.*/
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-
-                    case "R":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        /*this.*/ImageIO.read(new File("images/BR.png"));
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-                    case "k":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        /*this.*/ImageIO.read(new File("images/WN.png"));
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-                    case "K":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        /*this.*/ImageIO.read(new File("images/BN.png"));
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-                    case "b":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        /*this.*/ImageIO.read(new File("images/WB.png"));
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-                    case "B":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        /*this.*/ImageIO.read(new File("images/BB.png"));
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-                    case "q":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        /*this.*/ImageIO.read(new File("images/WQ.png"));
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-                    case "Q":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        /*this.*/ImageIO.read(new File("images/BQ.png"));
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-                    case "a":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        /*this.*/ImageIO.read(new File("images/WK.png"));
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-                    case "A":
-                        if (i == this.tileID) {
-                            try {
-                                final BufferedImage image =
-                                        /*this.*/ImageIO.read(new File("images/BK.png"));
-                                add(new JLabel(new ImageIcon(image)));
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                        break;
-                }
-            }
+        System.out.println("AI possible moves: ");
+        System.out.println(aiMovePossibilities);
+        System.out.println(Move.toString(result.getMove()) + " value: " + result.getScore() + " possible length: " + aiMovePossibilities.size());
+        System.out.println("depth: " + result.getDepth() + " nodes: " + result.getNodes());
+        System.out.println("principal variation: " + result.principalVariationToString());
+        System.out.println(Decision.getTranspositionTable().statistics());
+        System.out.println(Decision.getPawnTable().statistics());
+
+        if (moveValidator(aiMovePossibilities, result.getMove())) {
+            Board.executeMove(result.getMove());
+            ENGINE.startPondering(Constans.AI, result);
+        } else {
+            System.out.println("the AI is trying to cheat!");
         }
+        boardPanel.drawBoard();
     }
 }
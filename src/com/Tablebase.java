@@ -0,0 +1,524 @@
+package com;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class holds endgame tablebases: the exact result of every position of an endgame with a few pieces, computed
+ * in advance by TablebaseGenerator. The search uses them instead of searching such positions (see Decision.search()
+ * and Searcher.alphaBeta()), so it plays these endgames perfectly and at once.
+ * <p>
+ * A tablebase covers the positions where one alliance (the strong side) has its king and one or two other pieces and
+ * the other alliance has its king only, for example KQK, KRK, KPK or KBNK. It is stored from the point of view of
+ * the strong side as the user (white): positions where the AI is the strong side are mirrored before they are looked
+ * up. Every position takes one byte, see probe(). Positions that are mirror images of each other are stored only
+ * once: without pawns the strong king is always moved into the triangle a8-d8-d5 by the 8 symmetries of the board,
+ * with pawns the strong king is moved to the files a-d.
+ * <p>
+ * The tablebase files are read from the directory named by the chess.tablebases system property (tablebases by
+ * default) when the class is loaded. They are memory-mapped, so they are not read into the heap.
+ *
+ * @author Janos Nagy
+ */
+public class Tablebase {
+    /**
+     * The largest number of pieces, kings included, that a tablebase can have.
+     */
+    public static final int MAX_PIECES = 4;
+
+    /**
+     * Returned by probe() and score() if there is no tablebase for the position.
+     */
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    /**
+     * The value of a drawn position, see probe().
+     */
+    public static final int DRAW = 0;
+
+    /**
+     * The first bytes of every tablebase file.
+     */
+    private static final byte[] MAGIC = "AICTB001".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The piece letters of the tablebase names, indexed by piece type.
+     */
+    private static final String PIECE_LETTERS = " PNBRQK";
+
+    /**
+     * The fields that the strong king is moved to in tablebases without pawns (a8-d8-d5), and in tablebases with
+     * pawns (files a-d).
+     */
+    private static final int[] TRIANGLE = {0, 1, 2, 3, 9, 10, 11, 18, 19, 27};
+    private static final int[] HALF_BOARD = halfBoard();
+
+    /**
+     * The index of every field in TRIANGLE and HALF_BOARD, or -1 for the other fields.
+     */
+    private static final int[] TRIANGLE_INDEX = anchorIndex(TRIANGLE);
+    private static final int[] HALF_BOARD_INDEX = anchorIndex(HALF_BOARD);
+
+    /**
+     * The loaded tablebases, indexed by material(). The array is replaced, never changed, when a tablebase is added.
+     */
+    private static volatile Tablebase[] tables = new Tablebase[64];
+
+    static {
+        load(System.getProperty("chess.tablebases", "tablebases"));
+    }
+
+    /**
+     * The name of the tablebase, for example "KBNK".
+     */
+    private final String name;
+
+    /**
+     * The types of the pieces of the strong side besides the king, from the most valuable to the least valuable.
+     */
+    private final int[] pieceTypes;
+
+    /**
+     * The fields that the strong king is moved to, and their indexes, see TRIANGLE and HALF_BOARD.
+     */
+    private final int[] anchors;
+    private final int[] anchorIndex;
+
+    /**
+     * The number of symmetries that are used: 8 without pawns, 2 (mirroring the files) with pawns.
+     */
+    private final int symmetries;
+
+    /**
+     * The number of positions with one side to move.
+     */
+    private final int positionsPerSide;
+
+    /**
+     * The values of the positions, see probe().
+     */
+    private final ByteBuffer values;
+
+    /**
+     * Creates a tablebase over the given values.
+     *
+     * @param name   The name of the tablebase, for example "KBNK".
+     * @param values The values of the positions, see probe(). The buffer must not be changed afterwards.
+     */
+    Tablebase(String name, ByteBuffer values) {
+        this.name = normalizeName(name);
+        this.pieceTypes = pieceTypes(this.name);
+        boolean pawns = this.name.indexOf('P') >= 0;
+        this.anchors = pawns ? HALF_BOARD : TRIANGLE;
+        this.anchorIndex = pawns ? HALF_BOARD_INDEX : TRIANGLE_INDEX;
+        this.symmetries = pawns ? 2 : 8;
+        this.positionsPerSide = positionsPerSide(this.name);
+        if (values.capacity() != 2 * positionsPerSide) {
+            throw new IllegalArgumentException("The tablebase " + this.name + " needs " + 2 * positionsPerSide
+                    + " values instead of " + values.capacity());
+        }
+        this.values = values;
+    }
+
+    /**
+     * Opens a tablebase file.
+     *
+     * @param file The tablebase file. Its name is the name of the tablebase, for example KBNK.tb.
+     * @return The tablebase.
+     * @throws IOException if the file cannot be read or is not a tablebase file.
+     */
+    public static Tablebase open(File file) throws IOException {
+        String name = file.getName().replaceFirst("\\.tb$", "");
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+            channel.read(magic, 0);
+            if (!Arrays.equals(magic.array(), MAGIC)) {
+                throw new IOException("Not a tablebase: " + file);
+            }
+            ByteBuffer values = channel.map(FileChannel.MapMode.READ_ONLY, MAGIC.length, channel.size() - MAGIC.length);
+            return new Tablebase(name, values);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Not a tablebase: " + file, e);
+        }
+    }
+
+    /**
+     * Writes a tablebase file.
+     *
+     * @param file   The tablebase file. It is overwritten if it exists.
+     * @param values The values of the positions, see probe().
+     * @throws IOException if the file cannot be written.
+     */
+    static void write(File file, byte[] values) throws IOException {
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file))) {
+            output.write(MAGIC);
+            output.write(values);
+        }
+    }
+
+    /**
+     * Opens every tablebase file (*.tb) of a directory and adds it to the tablebases that the search uses.
+     *
+     * @param directory The name of the directory. Nothing happens if there is no such directory.
+     * @return The number of tablebases that were opened.
+     */
+    public static int load(String directory) {
+        File[] files = new File(directory).listFiles((dir, fileName) -> fileName.endsWith(".tb"));
+        if (files == null) {
+            return 0;
+        }
+        int count = 0;
+        for (File file : files) {
+            try {
+                register(open(file));
+                count++;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds a tablebase to the tablebases that the search uses. It replaces a tablebase of the same name.
+     *
+     * @param table The tablebase.
+     */
+    static synchronized void register(Tablebase table) {
+        Tablebase[] newTables = tables.clone();
+        newTables[material(table.pieceTypes)] = table;
+        tables = newTables;
+    }
+
+    /**
+     * Removes all tablebases, so that every position is searched.
+     */
+    public static synchronized void clear() {
+        tables = new Tablebase[64];
+    }
+
+    /**
+     * Looks up the value of a position.
+     *
+     * @param board    The board that holds the position.
+     * @param alliance The alliance that is about to move.
+     * @return NOT_FOUND if there is no tablebase for the position. Otherwise DRAW, a positive value n if the
+     * alliance checkmates its opponent after n plies, or a negative value -(n + 1) if the alliance is checkmated after
+     * n plies (-1 if it is checkmated already).
+     */
+    public static int probe(BitBoard board, int alliance) {
+        int pieceCount = Long.bitCount(board.allPieces);
+        if (pieceCount > MAX_PIECES) {
+            return NOT_FOUND;
+        }
+        if (pieceCount == 2) {
+            return DRAW;
+        }
+
+        int strong;
+        if (board.occupancy(Constans.AI) == board.pieces(Constans.AI, Constans.KING)) {
+            strong = Constans.HUMAN;
+        } else if (board.occupancy(Constans.HUMAN) == board.pieces(Constans.HUMAN, Constans.KING)) {
+            strong = Constans.AI;
+        } else {
+            return NOT_FOUND;
+        }
+
+        long strongPieces = board.occupancy(strong) & ~board.pieces(strong, Constans.KING);
+        int piece1 = Long.numberOfTrailingZeros(strongPieces);
+        strongPieces &= strongPieces - 1;
+        int piece2 = strongPieces == 0 ? -1 : Long.numberOfTrailingZeros(strongPieces);
+        int type1 = BitBoard.pieceType(board.pieceAt(piece1));
+        int type2 = piece2 < 0 ? Constans.NO_PIECE : BitBoard.pieceType(board.pieceAt(piece2));
+        if (type2 > type1) {
+            int square = piece1;
+            piece1 = piece2;
+            piece2 = square;
+            type2 = type1;
+            type1 = BitBoard.pieceType(board.pieceAt(piece1));
+        }
+
+        Tablebase table = tables[type1 * 8 + type2];
+        if (table == null) {
+            return NOT_FOUND;
+        }
+        int flip = strong == Constans.HUMAN ? 0 : 56;
+        int index = table.index(alliance == strong ? 0 : 1, board.kingSquare(strong) ^ flip,
+                board.kingSquare(strong ^ 1) ^ flip, piece1 ^ flip, piece2 < 0 ? -1 : piece2 ^ flip);
+        return table.values.get(index);
+    }
+
+    /**
+     * Looks up the value of a position and converts it into a value of the search, see Decision.MATE_SCORE.
+     * <p>
+     * The search only recognises checkmate values within Decision.MAX_PLY steps of the root (see
+     * Decision.scoreToTable()). A checkmate that lies further away, for example deep in the tree of a long KBNK
+     * ending, is not reported: the search treats the position as if it had no tablebase.
+     *
+     * @param board    The board that holds the position.
+     * @param alliance The alliance that is about to move.
+     * @param ply      an int value that represents the amount of steps between the root of the decision tree and the
+     *                 position.
+     * @return The value of the position for the alliance, or NOT_FOUND if there is no tablebase for the position or
+     * its checkmate lies more than Decision.MAX_PLY steps from the root.
+     */
+    public static int score(BitBoard board, int alliance, int ply) {
+        int value = probe(board, alliance);
+        if (value == NOT_FOUND || value == DRAW) {
+            return value;
+        }
+        int plies = value > 0 ? value : -value - 1;
+        if (ply + plies > Decision.MAX_PLY) {
+            return NOT_FOUND;
+        }
+        if (value > 0) {
+            return Decision.MATE_SCORE - ply - plies;
+        }
+        return -Decision.MATE_SCORE + ply + plies;
+    }
+
+    /**
+     * Plays the best moves of both alliances according to the tablebases: the quickest checkmate for the winning
+     * side and the slowest one for the losing side.
+     *
+     * @param board     The board that holds the position. It is not changed.
+     * @param alliance  The alliance that is about to move.
+     * @param maxLength The largest number of moves to return.
+     * @return The moves, or an empty array if there is no tablebase for the position or the game is over.
+     */
+    public static int[] principalVariation(BitBoard board, int alliance, int maxLength) {
+        BitBoard position = board.copy();
+        MoveList moves = new MoveList();
+        int[] principalVariation = new int[maxLength];
+        int length = 0;
+        while (length < maxLength) {
+            Board.allLegalMoves(position, alliance, moves);
+            int bestMove = Move.NO_MOVE;
+            int bestScore = -Decision.INFINITY;
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                position.makeMove(move);
+                int score = score(position, alliance ^ 1, 1);
+                position.unmakeMove(move);
+                if (score == NOT_FOUND) {
+                    return Arrays.copyOf(principalVariation, length);
+                }
+                if (-score > bestScore) {
+                    bestScore = -score;
+                    bestMove = move;
+                }
+            }
+            if (bestMove == Move.NO_MOVE) {
+                break;
+            }
+            principalVariation[length++] = bestMove;
+            position.makeMove(bestMove);
+            alliance ^= 1;
+        }
+        return Arrays.copyOf(principalVariation, length);
+    }
+
+    /**
+     * @return The name of the tablebase, for example "KBNK".
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The types of the pieces of the strong side besides the king, from the most valuable to the least
+     * valuable.
+     */
+    int[] getPieceTypes() {
+        return pieceTypes.clone();
+    }
+
+    /**
+     * @return The number of positions in the tablebase, including impossible positions and mirror images.
+     */
+    public int size() {
+        return 2 * positionsPerSide;
+    }
+
+    /**
+     * @param index The index of a position, see index().
+     * @return The value of the position, see probe().
+     */
+    int value(int index) {
+        return values.get(index);
+    }
+
+    /**
+     * Calculates the index of a position. The position is given from the point of view of the tablebase: the strong
+     * side is the user, whose pawns move towards row 0. Every symmetry that moves the strong king to an allowed field
+     * is tried, and the smallest index is used, so all mirror images of a position have the same index.
+     *
+     * @param sideToMove 0 if the strong side is about to move, 1 otherwise.
+     * @param strongKing The field of the king of the strong side.
+     * @param weakKing   The field of the other king.
+     * @param piece1     The field of the first piece of the strong side, see getPieceTypes().
+     * @param piece2     The field of the second piece of the strong side, or -1 if there is none.
+     * @return The index of the position.
+     */
+    int index(int sideToMove, int strongKing, int weakKing, int piece1, int piece2) {
+        boolean sameTypes = pieceTypes.length == 2 && pieceTypes[0] == pieceTypes[1];
+        int best = Integer.MAX_VALUE;
+        for (int symmetry = 0; symmetry < symmetries; symmetry++) {
+            int anchor = anchorIndex[transform(strongKing, symmetry)];
+            if (anchor < 0) {
+                continue;
+            }
+            int index = (sideToMove * anchors.length + anchor) * 64 + transform(weakKing, symmetry);
+            int square1 = transform(piece1, symmetry);
+            if (piece2 < 0) {
+                index = index * 64 + square1;
+            } else {
+                int square2 = transform(piece2, symmetry);
+                if (sameTypes && square2 < square1) {
+                    int square = square1;
+                    square1 = square2;
+                    square2 = square;
+                }
+                index = (index * 64 + square1) * 64 + square2;
+            }
+            best = Math.min(best, index);
+        }
+        return best;
+    }
+
+    /**
+     * The opposite of index(): finds the fields of the pieces of a position.
+     *
+     * @param index   The index of a position.
+     * @param squares Receives the fields of the strong king, the weak king and the pieces of getPieceTypes().
+     * @return 0 if the strong side is about to move, 1 otherwise.
+     */
+    int decode(int index, int[] squares) {
+        for (int i = pieceTypes.length + 1; i >= 1; i--) {
+            squares[i] = index % 64;
+            index /= 64;
+        }
+        squares[0] = anchors[index % anchors.length];
+        return index / anchors.length;
+    }
+
+    /**
+     * Applies a symmetry of the board to a field.
+     *
+     * @param square   The ID of the field (0-63).
+     * @param symmetry Bit 0 mirrors the columns, bit 1 mirrors the rows and bit 2 swaps rows and columns.
+     * @return The ID of the field that the given field is moved to.
+     */
+    static int transform(int square, int symmetry) {
+        int row = square / 8;
+        int column = square % 8;
+        if ((symmetry & 1) != 0) {
+            column = 7 - column;
+        }
+        if ((symmetry & 2) != 0) {
+            row = 7 - row;
+        }
+        if ((symmetry & 4) != 0) {
+            int swap = row;
+            row = column;
+            column = swap;
+        }
+        return row * 8 + column;
+    }
+
+    /**
+     * Checks a tablebase name and writes its pieces in the standard order, for example "KNBK" becomes "KBNK".
+     *
+     * @param name The name of a tablebase: K, one or two of the letters Q, R, B, N and P, and K.
+     * @return The name in the standard order.
+     */
+    static String normalizeName(String name) {
+        String upperCase = name.toUpperCase();
+        if (!upperCase.matches("K[QRBNP]{1,2}K")) {
+            throw new IllegalArgumentException("Unknown tablebase: " + name);
+        }
+        char[] pieces = upperCase.substring(1, upperCase.length() - 1).toCharArray();
+        Integer[] types = new Integer[pieces.length];
+        for (int i = 0; i < pieces.length; i++) {
+            types[i] = PIECE_LETTERS.indexOf(pieces[i]);
+        }
+        Arrays.sort(types, (a, b) -> b - a);
+        StringBuilder normalized = new StringBuilder("K");
+        for (int type : types) {
+            normalized.append(PIECE_LETTERS.charAt(type));
+        }
+        return normalized.append('K').toString();
+    }
+
+    /**
+     * @param name The name of a tablebase in the standard order, see normalizeName().
+     * @return The types of the pieces of the strong side besides the king.
+     */
+    static int[] pieceTypes(String name) {
+        int[] types = new int[name.length() - 2];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = PIECE_LETTERS.indexOf(name.charAt(i + 1));
+        }
+        return types;
+    }
+
+    /**
+     * @param pieceTypes The types of the pieces of the strong side besides the king, in the standard order.
+     * @return The name of the tablebase, for example "KBNK".
+     */
+    static String name(int[] pieceTypes) {
+        StringBuilder name = new StringBuilder("K");
+        for (int type : pieceTypes) {
+            name.append(PIECE_LETTERS.charAt(type));
+        }
+        return normalizeName(name.append('K').toString());
+    }
+
+    /**
+     * @param name The name of a tablebase in the standard order, see normalizeName().
+     * @return The number of positions with one side to move.
+     */
+    static int positionsPerSide(String name) {
+        int anchorCount = name.indexOf('P') >= 0 ? HALF_BOARD.length : TRIANGLE.length;
+        int positions = anchorCount * 64;
+        for (int i = 2; i < name.length(); i++) {
+            positions *= 64;
+        }
+        return positions;
+    }
+
+    /**
+     * @param pieceTypes The types of the pieces of the strong side besides the king, in the standard order.
+     * @return The index of the tablebase in tables.
+     */
+    private static int material(int[] pieceTypes) {
+        return pieceTypes[0] * 8 + (pieceTypes.length > 1 ? pieceTypes[1] : Constans.NO_PIECE);
+    }
+
+    private static int[] halfBoard() {
+        int[] squares = new int[32];
+        for (int square = 0, i = 0; square < 64; square++) {
+            if (square % 8 < 4) {
+                squares[i++] = square;
+            }
+        }
+        return squares;
+    }
+
+    private static int[] anchorIndex(int[] anchors) {
+        int[] index = new int[64];
+        Arrays.fill(index, -1);
+        for (int i = 0; i < anchors.length; i++) {
+            index[anchors[i]] = i;
+        }
+        return index;
+    }
+}
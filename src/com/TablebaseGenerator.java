@@ -0,0 +1,535 @@
+package com;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * This class generates the endgame tablebases of Tablebase by retrograde analysis.
+ * <p>
+ * First every position is looked at once: checkmates and stalemates are marked, and captures and promotions, which
+ * lead into smaller tablebases, are looked up there. Then the results are spread backwards one ply at a time: when a
+ * position is known to be lost in n plies, every position that leads to it by a move (found by taking the move back)
+ * is won in n + 1 plies. When a position is known to be won, every position that leads to it is checked again: if all
+ * its moves lead to won positions for the opponent, it is lost. Positions that are neither won nor lost when nothing
+ * changes any more are draws. Each ply is processed on all cores.
+ * <p>
+ * The smaller tablebases that captures and promotions lead into are generated first. The engine promotes pawns to
+ * queens only, so KPK depends on KQK.
+ * <p>
+ * Usage: java com.TablebaseGenerator [-dir directory] [-threads n] [KQK KRK KPK KBNK ...]
+ *
+ * @author Janos Nagy
+ */
+public class TablebaseGenerator {
+    /**
+     * The tablebases that are generated if none are named.
+     */
+    private static final String[] DEFAULT_TABLES = {"KQK", "KRK", "KPK", "KBNK"};
+
+    /**
+     * The value of a position that is not known yet.
+     */
+    private static final byte UNKNOWN = Byte.MIN_VALUE;
+
+    /**
+     * The largest number of plies to a checkmate that a tablebase can hold, see Tablebase.probe().
+     */
+    private static final int MAX_PLIES = 126;
+
+    /**
+     * The name of the tablebase that is generated.
+     */
+    private final String name;
+
+    /**
+     * The tablebase whose values are being generated, used for its index() and decode() methods.
+     */
+    private final Tablebase table;
+
+    /**
+     * The types of the pieces of the strong side besides the king, see Tablebase.getPieceTypes().
+     */
+    private final int[] pieceTypes;
+
+    /**
+     * The number of pieces, kings included.
+     */
+    private final int pieceCount;
+
+    /**
+     * The values of the positions that are known, or UNKNOWN. See Tablebase.probe().
+     */
+    private final byte[] values;
+
+    /**
+     * The value that each position will get when its number of plies is reached, or 0. Positions that are won
+     * through a capture or a promotion, and positions whose moves all lead to won positions for the opponent, get
+     * their value here first, because a quicker checkmate may still be found for them.
+     */
+    private final AtomicIntegerArray pending;
+
+    /**
+     * The boards that each thread decodes positions on: one for the decided positions whose moves are taken back,
+     * one for the positions that are checked, see slowestLoss().
+     */
+    private final ThreadLocal<BitBoard> boards = ThreadLocal.withInitial(BitBoard::new);
+    private final ThreadLocal<BitBoard> checkBoards = ThreadLocal.withInitial(BitBoard::new);
+
+    /**
+     * The list of moves that each thread generates moves into.
+     */
+    private final ThreadLocal<MoveList> moveLists = ThreadLocal.withInitial(MoveList::new);
+
+    /**
+     * Prepares the generation of a tablebase.
+     *
+     * @param name The name of the tablebase, for example "KBNK".
+     */
+    TablebaseGenerator(String name) {
+        this.name = Tablebase.normalizeName(name);
+        this.values = new byte[2 * Tablebase.positionsPerSide(this.name)];
+        this.table = new Tablebase(this.name, ByteBuffer.wrap(values));
+        this.pieceTypes = table.getPieceTypes();
+        this.pieceCount = this.name.length();
+        this.pending = new AtomicIntegerArray(values.length);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        String directory = "tablebases";
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-dir") && i + 1 < args.length) {
+                directory = args[++i];
+            } else if (args[i].equals("-threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                names.add(args[i]);
+            }
+        }
+        if (names.isEmpty()) {
+            names.addAll(Arrays.asList(DEFAULT_TABLES));
+        }
+
+        File tableDirectory = new File(directory);
+        if (!tableDirectory.isDirectory() && !tableDirectory.mkdirs()) {
+            throw new IOException("Cannot create the directory " + directory);
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try {
+            for (String name : names) {
+                generate(Tablebase.normalizeName(name), tableDirectory, pool);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Generates a tablebase and the tablebases it depends on, unless their files exist already. The tablebase is
+     * written to its file and added to the tablebases that Tablebase.probe() uses.
+     *
+     * @param name      The name of the tablebase in the standard order.
+     * @param directory The directory of the tablebase files.
+     * @param pool      The threads that generate the tablebase.
+     * @throws IOException if a file cannot be read or written.
+     */
+    private static void generate(String name, File directory, ForkJoinPool pool)
+            throws IOException, InterruptedException, ExecutionException {
+        File file = new File(directory, name + ".tb");
+        if (file.isFile()) {
+            Tablebase.register(Tablebase.open(file));
+            return;
+        }
+        for (String dependency : dependencies(name)) {
+            generate(dependency, directory, pool);
+        }
+
+        long start = System.nanoTime();
+        TablebaseGenerator generator = new TablebaseGenerator(name);
+        int longestMate = pool.submit(() -> generator.generate()).get();
+        Tablebase.write(file, generator.values);
+        Tablebase.register(new Tablebase(name, ByteBuffer.wrap(generator.values)));
+        System.out.println(String.format("%-6s %9d positions, longest mate %3d plies, %6d ms", name,
+                generator.values.length, longestMate, (System.nanoTime() - start) / 1000000));
+    }
+
+    /**
+     * Finds the tablebases that captures and promotions lead into.
+     *
+     * @param name The name of a tablebase in the standard order.
+     * @return The names of the smaller tablebases. KK is left out, it is always a draw.
+     */
+    static List<String> dependencies(String name) {
+        int[] pieceTypes = Tablebase.pieceTypes(name);
+        List<String> dependencies = new ArrayList<>();
+        for (int i = 0; i < pieceTypes.length; i++) {
+            if (pieceTypes.length > 1) {
+                int[] remaining = new int[pieceTypes.length - 1];
+                for (int j = 0, k = 0; j < pieceTypes.length; j++) {
+                    if (j != i) {
+                        remaining[k++] = pieceTypes[j];
+                    }
+                }
+                addDependency(dependencies, Tablebase.name(remaining));
+            }
+            if (pieceTypes[i] == Constans.PAWN) {
+                int[] promoted = pieceTypes.clone();
+                promoted[i] = Constans.QUEEN;
+                addDependency(dependencies, Tablebase.name(promoted));
+            }
+        }
+        return dependencies;
+    }
+
+    private static void addDependency(List<String> dependencies, String name) {
+        if (!dependencies.contains(name)) {
+            dependencies.add(name);
+        }
+    }
+
+    /**
+     * Generates the values of all positions. It has to run in a ForkJoinPool, whose threads are used.
+     *
+     * @return The largest number of plies to a checkmate.
+     */
+    private int generate() {
+        Arrays.fill(values, UNKNOWN);
+        IntStream.range(0, values.length).parallel().forEach(this::initialize);
+
+        int longestMate = 0;
+        for (int plies = 0; plies <= MAX_PLIES; plies++) {
+            int win = plies;
+            int loss = -(plies + 1);
+            int[] decided = IntStream.range(0, values.length).parallel()
+                    .filter(index -> values[index] == UNKNOWN && pending.get(index) != 0
+                            && (pending.get(index) == win || pending.get(index) == loss))
+                    .toArray();
+            if (decided.length == 0) {
+                if (!anythingPending()) {
+                    break;
+                }
+                continue;
+            }
+            longestMate = plies;
+            Arrays.stream(decided).parallel().forEach(index -> values[index] = (byte) pending.get(index));
+            Arrays.stream(decided).parallel().forEach(index -> retract(index, win));
+        }
+
+        if (anythingPending()) {
+            throw new IllegalStateException("The tablebase " + name + " has checkmates after more than " + MAX_PLIES
+                    + " plies");
+        }
+        IntStream.range(0, values.length).parallel().forEach(index -> {
+            if (values[index] == UNKNOWN) {
+                values[index] = Tablebase.DRAW;
+            }
+        });
+        return longestMate;
+    }
+
+    /**
+     * @return true if a position is waiting for its number of plies, see pending.
+     */
+    private boolean anythingPending() {
+        return IntStream.range(0, values.length).parallel()
+                .anyMatch(index -> values[index] == UNKNOWN && pending.get(index) != 0);
+    }
+
+    /**
+     * Looks at a position for the first time. Impossible positions, mirror images of other positions and stalemates
+     * get the value DRAW, checkmates are pending as lost in 0 plies. The moves that leave the tablebase are looked
+     * up in the smaller tablebases.
+     *
+     * @param index The index of the position.
+     */
+    private void initialize(int index) {
+        BitBoard board = decode(index, boards.get());
+        if (board == null) {
+            values[index] = Tablebase.DRAW;
+            return;
+        }
+        int alliance = sideToMove(index);
+        MoveList moves = moveLists.get();
+        Board.allLegalMoves(board, alliance, moves);
+        if (moves.size() == 0) {
+            if (Attacks.isSquareAttacked(board, board.kingSquare(alliance), alliance ^ 1)) {
+                pending.set(index, -1);
+            } else {
+                values[index] = Tablebase.DRAW;
+            }
+            clear(board);
+            return;
+        }
+
+        int quickestWin = Integer.MAX_VALUE;
+        int slowestLoss = -1;
+        boolean draw = false;
+        boolean movesInside = false;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (!leavesTablebase(move)) {
+                movesInside = true;
+                continue;
+            }
+            board.makeMove(move);
+            int value = Tablebase.probe(board, alliance ^ 1);
+            board.unmakeMove(move);
+            if (value == Tablebase.NOT_FOUND) {
+                throw new IllegalStateException("The tablebase for " + Fen.fromBoard(board, alliance)
+                        + " after " + Move.toString(move) + " is missing");
+            }
+            if (value < 0) {
+                quickestWin = Math.min(quickestWin, -value);
+            } else if (value == Tablebase.DRAW) {
+                draw = true;
+            } else {
+                slowestLoss = Math.max(slowestLoss, value + 1);
+            }
+        }
+        clear(board);
+
+        if (quickestWin != Integer.MAX_VALUE) {
+            pending.set(index, quickestWin);
+        } else if (!movesInside) {
+            if (draw) {
+                values[index] = Tablebase.DRAW;
+            } else {
+                pending.set(index, -(slowestLoss + 1));
+            }
+        }
+    }
+
+    /**
+     * Takes back every move that leads to a position whose value has just been decided, and updates the positions
+     * that the moves start from.
+     *
+     * @param index The index of the decided position.
+     * @param plies The number of plies to the checkmate of the decided position.
+     */
+    private void retract(int index, int plies) {
+        BitBoard board = decode(index, boards.get());
+        int alliance = sideToMove(index);
+        boolean lost = values[index] < 0;
+        int mover = alliance ^ 1;
+
+        long ownPieces = board.occupancy(mover);
+        long empty = ~board.allPieces;
+        while (ownPieces != 0) {
+            int destination = Long.numberOfTrailingZeros(ownPieces);
+            ownPieces &= ownPieces - 1;
+            int pieceType = BitBoard.pieceType(board.pieceAt(destination));
+            long origins = origins(board, destination, pieceType) & empty;
+            while (origins != 0) {
+                int origin = Long.numberOfTrailingZeros(origins);
+                origins &= origins - 1;
+
+                board.removePiece(destination);
+                board.putPiece(mover, pieceType, origin);
+                if (!Attacks.isSquareAttacked(board, board.kingSquare(alliance), mover)) {
+                    int previous = index(board, mover);
+                    if (values[previous] == UNKNOWN) {
+                        if (lost) {
+                            setPending(previous, plies + 1);
+                        } else {
+                            int slowestLoss = slowestLoss(previous);
+                            if (slowestLoss >= 0) {
+                                setPending(previous, -(slowestLoss + 2));
+                            }
+                        }
+                    }
+                }
+                board.removePiece(origin);
+                board.putPiece(mover, pieceType, destination);
+            }
+        }
+        clear(board);
+    }
+
+    /**
+     * Finds the fields that a piece can have come from with its last move, without capturing or promoting.
+     *
+     * @param board       The board that holds the position.
+     * @param destination The field of the piece.
+     * @param pieceType   The type of the piece.
+     * @return A bitboard of the fields. Occupied fields still have to be removed.
+     */
+    private static long origins(BitBoard board, int destination, int pieceType) {
+        switch (pieceType) {
+            case Constans.KING:
+                return Attacks.kingAttacks(destination);
+            case Constans.KNIGHT:
+                return Attacks.knightAttacks(destination);
+            case Constans.BISHOP:
+                return Attacks.bishopAttacks(destination, board.allPieces);
+            case Constans.ROOK:
+                return Attacks.rookAttacks(destination, board.allPieces);
+            case Constans.QUEEN:
+                return Attacks.bishopAttacks(destination, board.allPieces)
+                        | Attacks.rookAttacks(destination, board.allPieces);
+            case Constans.PAWN:
+                int row = destination / 8;
+                long origins = 0;
+                if (row < Pawn.startRow(Constans.HUMAN)) {
+                    origins |= 1L << (destination + 8);
+                }
+                if (row == Pawn.startRow(Constans.HUMAN) - 2 && board.isEmpty(destination + 8)) {
+                    origins |= 1L << (destination + 16);
+                }
+                return origins;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Checks if all moves of an undecided position lead to decided positions that are won by the opponent, and finds
+     * the largest number of plies to the checkmate over these moves.
+     *
+     * @param index The index of the position.
+     * @return The number of plies, or -1 if a move leads to a position that is not decided or not won by the
+     * opponent.
+     */
+    private int slowestLoss(int index) {
+        BitBoard board = decode(index, checkBoards.get());
+        int alliance = sideToMove(index);
+        MoveList moves = moveLists.get();
+        Board.allLegalMoves(board, alliance, moves);
+        int slowestLoss = -1;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            board.makeMove(move);
+            int value = leavesTablebase(move) ? Tablebase.probe(board, alliance ^ 1) : values[index(board, alliance ^ 1)];
+            board.unmakeMove(move);
+            if (value <= 0) {
+                slowestLoss = -1;
+                break;
+            }
+            slowestLoss = Math.max(slowestLoss, value);
+        }
+        clear(board);
+        return slowestLoss;
+    }
+
+    /**
+     * Sets the pending value of a position, unless it already has a pending value that is at least as good for the
+     * side to move.
+     *
+     * @param index The index of the position.
+     * @param value The new value, see Tablebase.probe().
+     */
+    private void setPending(int index, int value) {
+        while (true) {
+            int current = pending.get(index);
+            if (current != 0 && (value < 0 || (current > 0 && current <= value))) {
+                return;
+            }
+            if (pending.compareAndSet(index, current, value)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param move A legal move of a position of the tablebase.
+     * @return true if the move leads into a smaller tablebase: a capture or a promotion.
+     */
+    private static boolean leavesTablebase(int move) {
+        return Move.capturedType(move) != Constans.NO_PIECE || Move.promotionType(move) != Constans.NO_PIECE;
+    }
+
+    /**
+     * @param index The index of a position.
+     * @return The alliance that is about to move: the strong side is the user.
+     */
+    private int sideToMove(int index) {
+        return index < values.length / 2 ? Constans.HUMAN : Constans.AI;
+    }
+
+    /**
+     * Calculates the index of the position on a board.
+     *
+     * @param board    The board that holds a position of the tablebase, with the user as the strong side.
+     * @param alliance The alliance that is about to move.
+     * @return The index of the position.
+     */
+    private int index(BitBoard board, int alliance) {
+        long pieces = board.occupancy(Constans.HUMAN) & ~board.pieces(Constans.HUMAN, Constans.KING);
+        int piece1 = -1;
+        int piece2 = -1;
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            if (piece1 < 0 && BitBoard.pieceType(board.pieceAt(square)) == pieceTypes[0]) {
+                piece1 = square;
+            } else {
+                piece2 = square;
+            }
+        }
+        return table.index(alliance == Constans.HUMAN ? 0 : 1, board.kingSquare(Constans.HUMAN),
+                board.kingSquare(Constans.AI), piece1, piece2);
+    }
+
+    /**
+     * Places the pieces of a position on a board.
+     *
+     * @param index The index of the position.
+     * @param board An empty board of the current thread.
+     * @return The board, or null if the position is impossible or a mirror image of a position with a smaller index.
+     * The board has to be cleared with clear() after use.
+     */
+    private BitBoard decode(int index, BitBoard board) {
+        int[] squares = new int[pieceCount];
+        int sideToMove = table.decode(index, squares);
+        long occupied = 0;
+        for (int square : squares) {
+            occupied |= 1L << square;
+        }
+        if (Long.bitCount(occupied) != pieceCount) {
+            return null;
+        }
+        for (int i = 0; i < pieceTypes.length; i++) {
+            int row = squares[i + 2] / 8;
+            if (pieceTypes[i] == Constans.PAWN && (row == 0 || row == 7)) {
+                return null;
+            }
+        }
+        if (table.index(sideToMove, squares[0], squares[1], squares[2],
+                pieceTypes.length > 1 ? squares[3] : -1) != index) {
+            return null;
+        }
+
+        board.putPiece(Constans.HUMAN, Constans.KING, squares[0]);
+        board.putPiece(Constans.AI, Constans.KING, squares[1]);
+        for (int i = 0; i < pieceTypes.length; i++) {
+            board.putPiece(Constans.HUMAN, pieceTypes[i], squares[i + 2]);
+        }
+        int alliance = sideToMove == 0 ? Constans.HUMAN : Constans.AI;
+        if (Attacks.isSquareAttacked(board, board.kingSquare(alliance ^ 1), alliance)) {
+            clear(board);
+            return null;
+        }
+        return board;
+    }
+
+    /**
+     * Removes all pieces from a board.
+     *
+     * @param board The board.
+     */
+    private static void clear(BitBoard board) {
+        long pieces = board.allPieces;
+        while (pieces != 0) {
+            board.removePiece(Long.numberOfTrailingZeros(pieces));
+            pieces &= pieces - 1;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com;
+
+import java.util.Arrays;
+
+/**
+ * This class provides a fixed-size hash table that remembers the results of the search for positions that were
+ * already searched, so that transpositions (the same position reached by a different order of moves) do not need to
+ * be searched again.
+ * <p>
+ * The table is organised in buckets of two entries. The first entry of a bucket is only replaced by a search that was
+ * at least as deep, or if it was stored by an earlier search (depth-preferred). The second entry is always replaced.
+ * Every entry is packed into a single long value next to the full hash key of its position:
+ * <p>
+ * Bits 0-21: The best move found in the position (see Move).
+ * Bits 22-41: The value of the position, a signed 20 bit number.
+ * Bits 42-49: The depth that the position was searched to.
+ * Bits 50-51: The bound type: EXACT, LOWER_BOUND or UPPER_BOUND.
+ * Bits 52-59: The generation of the search that stored the entry.
+ * <p>
+ * The table is shared by all search threads without any locking. Instead of the key, the key XOR-ed with the entry is
+ * stored, so an entry that is torn by two threads writing the same slot at the same time no longer matches its key
+ * and is simply ignored by probe(). The counters are not synchronised either, so they are approximate while more
+ * than one thread is searching.
+ *
+ * @author Janos Nagy
+ */
+public class TranspositionTable {
+    /**
+     * The stored value is the exact value of the position.
+     */
+    public static final int EXACT = 1;
+
+    /**
+     * The search failed high: the real value of the position is at least the stored value.
+     */
+    public static final int LOWER_BOUND = 2;
+
+    /**
+     * The search failed low: the real value of the position is at most the stored value.
+     */
+    public static final int UPPER_BOUND = 3;
+
+    /**
+     * The number of bytes used by one entry: a long key and a long data value.
+     */
+    private static final int ENTRY_SIZE = 16;
+
+    /**
+     * The hash keys of the positions held in the table, XOR-ed with the entry that belongs to them.
+     */
+    private long[] keys;
+
+    /**
+     * The packed entries that belong to the keys with the same index.
+     */
+    private long[] entries;
+
+    /**
+     * The number of buckets minus one. The number of buckets is always a power of two.
+     */
+    private int bucketMask;
+
+    /**
+     * The generation of the current search. It is increased by newSearch().
+     */
+    private int generation;
+
+    /**
+     * Counters that show how well the table works with its current size.
+     */
+    private long probes;
+    private long hits;
+    private long stores;
+    private long overwrites;
+
+    /**
+     * Constructs a transposition table.
+     *
+     * @param megabytes The size of the table in megabytes.
+     */
+    public TranspositionTable(int megabytes) {
+        resize(megabytes);
+    }
+
+    /**
+     * Changes the size of the table. All entries are lost.
+     *
+     * @param megabytes The size of the table in megabytes. The number of entries is rounded down to a power of two.
+     */
+    public void resize(int megabytes) {
+        long requestedEntries = Math.max(2, (long) megabytes * 1024 * 1024 / ENTRY_SIZE);
+        int entryCount = (int) Math.min(Long.highestOneBit(requestedEntries), 1 << 30);
+        keys = new long[entryCount];
+        entries = new long[entryCount];
+        bucketMask = entryCount / 2 - 1;
+        resetStatistics();
+    }
+
+    /**
+     * @return The size of the table in megabytes.
+     */
+    public int getSizeInMegabytes() {
+        return (int) ((long) keys.length * ENTRY_SIZE / (1024 * 1024));
+    }
+
+    /**
+     * Empties the table.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(entries, 0);
+        resetStatistics();
+    }
+
+    /**
+     * Marks the beginning of a new search, so that the entries of earlier searches can be replaced.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * Looks up a position in the table.
+     *
+     * @param key The hash key of the position.
+     * @return The packed entry of the position, or 0 if the position is not in the table.
+     */
+    public long probe(long key) {
+        probes++;
+        int index = (int) (key & bucketMask) << 1;
+        for (int i = index; i < index + 2; i++) {
+            long entry = entries[i];
+            if (entry != 0 && (keys[i] ^ entry) == key) {
+                hits++;
+                return entry;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores the result of the search of a position.
+     *
+     * @param key   The hash key of the position.
+     * @param move  The best move found in the position, or Move.NO_MOVE.
+     * @param score The value of the position, see Decision.scoreToTable().
+     * @param depth The depth that the position was searched to.
+     * @param bound EXACT, LOWER_BOUND or UPPER_BOUND.
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = (int) (key & bucketMask) << 1;
+        long depthPreferred = entries[index];
+        if (depthPreferred != 0 && (keys[index] ^ depthPreferred) != key && depth < depth(depthPreferred)
+                && generation(depthPreferred) == generation) {
+            index++;
+        }
+
+        long oldEntry = entries[index];
+        boolean samePosition = (keys[index] ^ oldEntry) == key;
+        if (move == Move.NO_MOVE && samePosition) {
+            move = move(oldEntry);
+        }
+        if (oldEntry != 0 && !samePosition) {
+            overwrites++;
+        }
+        stores++;
+        long entry = (move & 0x3FFFFFL)
+                | ((score & 0xFFFFFL) << 22)
+                | ((long) (depth & 0xFF) << 42)
+                | ((long) bound << 50)
+                | ((long) generation << 52);
+        keys[index] = key ^ entry;
+        entries[index] = entry;
+    }
+
+    /**
+     * @param entry A packed entry returned by probe().
+     * @return The best move stored in the entry, or Move.NO_MOVE.
+     */
+    public static int move(long entry) {
+        return (int) (entry & 0x3FFFFF);
+    }
+
+    /**
+     * @param entry A packed entry returned by probe().
+     * @return The value stored in the entry.
+     */
+    public static int score(long entry) {
+        return (int) (entry << 22 >> 44);
+    }
+
+    /**
+     * @param entry A packed entry returned by probe().
+     * @return The depth that the position was searched to.
+     */
+    public static int depth(long entry) {
+        return (int) ((entry >>> 42) & 0xFF);
+    }
+
+    /**
+     * @param entry A packed entry returned by probe().
+     * @return EXACT, LOWER_BOUND or UPPER_BOUND.
+     */
+    public static int bound(long entry) {
+        return (int) ((entry >>> 50) & 3);
+    }
+
+    /**
+     * @param entry A packed entry returned by probe().
+     * @return The generation of the search that stored the entry.
+     */
+    private static int generation(long entry) {
+        return (int) ((entry >>> 52) & 0xFF);
+    }
+
+    /**
+     * Sets all counters to zero.
+     */
+    public void resetStatistics() {
+        probes = 0;
+        hits = 0;
+        stores = 0;
+        overwrites = 0;
+    }
+
+    /**
+     * @return The number of lookups since the counters were reset.
+     */
+    public long getProbes() {
+        return probes;
+    }
+
+    /**
+     * @return The number of lookups that found their position since the counters were reset.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The ratio of successful lookups, between 0 and 1.
+     */
+    public double getHitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    /**
+     * @return The number of entries that were filled with a different position, a sign that the table is too small.
+     */
+    public long getOverwrites() {
+        return overwrites;
+    }
+
+    /**
+     * Creates a readable summary of the counters for the console output.
+     *
+     * @return A String value that holds the size of the table and its counters.
+     */
+    public String statistics() {
+        return String.format("hash %d MB, probes %d, hits %d (%.1f%%), stores %d, overwrites %d",
+                getSizeInMegabytes(), probes, hits, getHitRate() * 100, stores, overwrites);
+    }
+}
@@ -0,0 +1,89 @@
+package com;
+
+import java.util.Random;
+
+/**
+ * This class provides the random numbers of Zobrist hashing. The hash key of a position is the XOR of the random
+ * numbers that belong to every piece on its field, so executing or undoing a move only needs to XOR the numbers of the
+ * few pieces that the move touches (see BitBoard.putPiece() and BitBoard.removePiece()).
+ *
+ * @author Janos Nagy
+ */
+public class Zobrist {
+    /**
+     * The random numbers indexed by piece code (see BitBoard.pieceCode()) and by the ID of the field (0-63).
+     * A fixed seed is used so that hash keys are the same in every run of the program.
+     */
+    private static final long[][] PIECE_KEYS = new long[16][64];
+
+    /**
+     * The random number that is XOR-ed into the hash key when the AI is about to move, so that the same placement of
+     * pieces with a different side to move is a different entry of the transposition table.
+     */
+    private static final long AI_TO_MOVE_KEY;
+
+    static {
+        Random random = new Random(0x5EED_C0DEL);
+        for (int pieceCode = 0; pieceCode < PIECE_KEYS.length; pieceCode++) {
+            for (int square = 0; square < 64; square++) {
+                PIECE_KEYS[pieceCode][square] = random.nextLong();
+            }
+        }
+        AI_TO_MOVE_KEY = random.nextLong();
+    }
+
+    /**
+     * Returns the random number that belongs to a piece on a field.
+     *
+     * @param pieceCode A piece code created by BitBoard.pieceCode().
+     * @param square    The ID of the field (0-63).
+     * @return A long value that is XOR-ed into the hash key when the piece is placed on or removed from the field.
+     */
+    public static long pieceKey(int pieceCode, int square) {
+        return PIECE_KEYS[pieceCode][square];
+    }
+
+    /**
+     * Returns the random number that belongs to the side to move.
+     *
+     * @param alliance The alliance that is about to move, Constans.AI or Constans.HUMAN.
+     * @return AI_TO_MOVE_KEY for the AI, 0 for the user.
+     */
+    public static long sideKey(int alliance) {
+        return alliance == Constans.AI ? AI_TO_MOVE_KEY : 0;
+    }
+
+    /**
+     * Calculates the hash key of a position from scratch. The search never needs this function because the keys are
+     * updated incrementally, but it is useful to check the incremental keys.
+     *
+     * @param board The board that holds the position.
+     * @return The hash key of the position.
+     */
+    public static long computeKey(BitBoard board) {
+        long key = 0;
+        for (int square = 0; square < 64; square++) {
+            if (board.pieceAt(square) != Constans.NO_PIECE) {
+                key ^= pieceKey(board.pieceAt(square), square);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Calculates the hash key of the pawns of a position from scratch, see BitBoard.pawnKey.
+     *
+     * @param board The board that holds the position.
+     * @return The hash key of the pawns.
+     */
+    public static long computePawnKey(BitBoard board) {
+        long key = 0;
+        for (int square = 0; square < 64; square++) {
+            int pieceCode = board.pieceAt(square);
+            if (pieceCode != Constans.NO_PIECE && BitBoard.pieceType(pieceCode) == Constans.PAWN) {
+                key ^= pieceKey(pieceCode, square);
+            }
+        }
+        return key;
+    }
+}